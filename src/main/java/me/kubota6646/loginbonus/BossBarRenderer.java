@@ -0,0 +1,139 @@
+package me.kubota6646.loginbonus;
+
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import java.util.logging.Logger;
+
+/**
+ * 報酬までの残り時間を表示するボスバーの描画
+ * タイトルのテンプレート・色・スタイルは設定の読み込み時に1回だけ解決します。
+ * 表示される残り秒数または量子化した進捗が変わった場合のみ更新し、不要なパケット送信を抑えます。
+ */
+public final class BossBarRenderer {
+
+    /** 進捗バーの段階数（1%刻み） */
+    private static final int PROGRESS_STEPS = 100;
+    private static final int MIN_UPDATE_INTERVAL = 10;
+    private static final int MAX_UPDATE_INTERVAL = 200;
+
+    private final MessageTemplate titleTemplate;
+    private final BarColor color;
+    private final BarStyle style;
+    private final long updateIntervalTicks;
+
+    private BossBarRenderer(MessageTemplate titleTemplate, BarColor color, BarStyle style, long updateIntervalTicks) {
+        this.titleTemplate = titleTemplate;
+        this.color = color;
+        this.style = style;
+        this.updateIntervalTicks = updateIntervalTicks;
+    }
+
+    /**
+     * 設定からボスバーの描画設定を作成する
+     * @param config 設定
+     * @param logger 警告の出力先
+     * @return 描画設定
+     */
+    public static BossBarRenderer load(FileConfiguration config, Logger logger) {
+        String titleTemplate = config.getString("boss-bar-title", "&a報酬まで残り: %remaining%");
+        String colorStr = config.getString("boss-bar-color", "BLUE");
+        String styleStr = config.getString("boss-bar-style", "SOLID");
+        BarColor color;
+        BarStyle style;
+        try {
+            color = BarColor.valueOf(colorStr.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning("無効なボスバーカラー: " + colorStr + " - デフォルトのBLUEを使用します");
+            color = BarColor.BLUE;
+        }
+        try {
+            style = BarStyle.valueOf(styleStr.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning("無効なボスバースタイル: " + styleStr + " - デフォルトのSOLIDを使用します");
+            style = BarStyle.SOLID;
+        }
+
+        int interval = config.getInt("boss-bar-update-interval", 20);
+        if (interval < MIN_UPDATE_INTERVAL) {
+            logger.warning("boss-bar-update-interval が小さすぎます（" + interval + "ティック）。最小値の" + MIN_UPDATE_INTERVAL + "ティックを使用します。");
+            interval = MIN_UPDATE_INTERVAL;
+        } else if (interval > MAX_UPDATE_INTERVAL) {
+            logger.warning("boss-bar-update-interval が大きすぎます（" + interval + "ティック）。最大値の" + MAX_UPDATE_INTERVAL + "ティックを使用します。");
+            interval = MAX_UPDATE_INTERVAL;
+        }
+        return new BossBarRenderer(MessageTemplate.compile(titleTemplate), color, style, interval);
+    }
+
+    /**
+     * @return ボスバーの更新間隔（ティック）
+     */
+    public long getUpdateIntervalTicks() {
+        return updateIntervalTicks;
+    }
+
+    /**
+     * ボスバーを作成してプレイヤーに表示する
+     * @return 作成したボスバー
+     */
+    public View create(Player player, int targetMinutes, double cumulativeMinutes) {
+        View view = new View(Bukkit.createBossBar("", color, style));
+        update(view, targetMinutes, cumulativeMinutes);
+        view.bossBar.addPlayer(player);
+        return view;
+    }
+
+    /**
+     * 表示内容が変わった場合のみボスバーを更新する
+     */
+    public void update(View view, int targetMinutes, double cumulativeMinutes) {
+        double remainingMinutes = targetMinutes - cumulativeMinutes;
+        int remainingSeconds = (int) Math.ceil(Math.max(remainingMinutes, 0.0) * 60);
+        if (remainingSeconds != view.shownSeconds || titleTemplate != view.shownTemplate) {
+            view.bossBar.setTitle(titleTemplate.render("%remaining%", formatTime(remainingSeconds)));
+            view.shownSeconds = remainingSeconds;
+            view.shownTemplate = titleTemplate;
+        }
+
+        double progress = Math.max(0.0, Math.min(cumulativeMinutes / targetMinutes, 1.0));
+        int step = (int) (progress * PROGRESS_STEPS);
+        if (step != view.shownStep) {
+            view.bossBar.setProgress(step / (double) PROGRESS_STEPS);
+            view.shownStep = step;
+        }
+    }
+
+    /**
+     * 秒数を mm:ss 形式に変換する
+     */
+    static String formatTime(int totalSeconds) {
+        int minutes = totalSeconds / 60;
+        int seconds = totalSeconds % 60;
+        return (minutes < 10 ? "0" : "") + minutes + (seconds < 10 ? ":0" : ":") + seconds;
+    }
+
+    /**
+     * プレイヤーに表示中のボスバーと、最後に送信した表示内容
+     */
+    public static final class View {
+        private final BossBar bossBar;
+        private MessageTemplate shownTemplate;
+        private int shownSeconds = -1;
+        private int shownStep = -1;
+
+        private View(BossBar bossBar) {
+            this.bossBar = bossBar;
+        }
+
+        /**
+         * ボスバーを非表示にする
+         */
+        public void remove() {
+            bossBar.removeAll();
+        }
+    }
+}
@@ -1,35 +1,37 @@
 package me.kubota6646.loginbonus;
 
+import me.kubota6646.loginbonus.storage.ClaimResult;
+import me.kubota6646.loginbonus.storage.PlayerRecord;
 import org.bukkit.ChatColor;
-import org.bukkit.Material;
-import org.bukkit.boss.BarColor;
-import org.bukkit.boss.BarStyle;
-import org.bukkit.boss.BossBar;
-import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
-import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class EventListener implements Listener {
 
+    private static final long CLAIM_RETRY_BASE_MILLIS = 5000L; // 受け取りに失敗した後、最初に再試行するまでの時間
+    private static final long CLAIM_RETRY_MAX_MILLIS = 300000L; // 再試行の間隔の上限
+
     private final Main plugin;
-    private final Map<UUID, BossBar> bossBars = new ConcurrentHashMap<>();
-    private final Map<UUID, BukkitTask> updateTasks = new ConcurrentHashMap<>();
-    private final Map<UUID, Long> loginTimes = new ConcurrentHashMap<>(); // ログイン開始時間 (ミリ秒)
-    private final Map<UUID, String> currentDates = new ConcurrentHashMap<>(); // 現在の日付
-    private final Map<UUID, Double> cumulativeMinutesMap = new ConcurrentHashMap<>(); // 累積時間
+    private final Map<UUID, TrackingState> trackedPlayers = new ConcurrentHashMap<>(); // トラッキング中のプレイヤー
+    private BukkitTask ticker; // 全プレイヤー共通の毎秒更新タスク
+    private final Set<UUID> pendingJoins = new LinkedHashSet<>(); // ストレージの初期化完了前に参加したプレイヤー（メインスレッドのみ）
+    private boolean storageReady; // ストレージの初期化が完了したか（メインスレッドのみ）
 
     public EventListener(Main plugin) {
         this.plugin = plugin;
@@ -38,39 +40,64 @@ public class EventListener implements Listener {
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        if (!storageReady) {
+            // ストレージの初期化完了後にまとめてトラッキングを開始する
+            pendingJoins.add(player.getUniqueId());
+            plugin.getLogger().fine("ストレージの準備中のため、プレイヤー " + player.getName() + " のトラッキング開始を保留しました");
+            return;
+        }
+        beginSession(player);
+    }
+
+    /**
+     * ストレージの初期化が完了したときにメインスレッドで呼び出される
+     * 初期化の完了前に参加し、まだオンラインのプレイヤーのトラッキングを参加順に開始します
+     */
+    public void onStorageReady() {
+        storageReady = true;
+        if (pendingJoins.isEmpty()) {
+            return;
+        }
+        int started = 0;
+        for (UUID playerId : pendingJoins) {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player != null && player.isOnline()) {
+                beginSession(player);
+                started++;
+            }
+        }
+        pendingJoins.clear();
+        plugin.getLogger().info("ストレージの準備完了前に参加した " + started + " 人のプレイヤーのトラッキングを開始しました");
+    }
+
+    /**
+     * 参加したプレイヤーのデータを読み込み、トラッキングを開始する
+     */
+    private void beginSession(Player player) {
         UUID playerId = player.getUniqueId();
 
-        // MySQL使用時は非同期で自動同期とデータ読み込み
+        // MySQL使用時は非同期でリースの取得とデータ読み込み
         String storageType = plugin.getConfig().getString("storage-type", "yaml").toLowerCase();
         if (storageType.equals("mysql")) {
-            // BungeeCord等でのサーバー間移動時、前のサーバーがデータを保存するのを待つために
-            // 少し遅延させてからデータを読み込む（500ms）
-            plugin.getServer().getScheduler().runTaskLaterAsynchronously(plugin, () -> {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+                // BungeeCord等でのサーバー間移動時、前のサーバーがまだ保存中の場合のみ保存完了を待つ
+                // プレイヤー名（v1.5.0: Bungeecord版での表示用）もリースと同じ書き込みで更新する
+                if (!plugin.getStorage().acquireLease(playerId, player.getName())) {
+                    plugin.getLogger().warning("プレイヤー " + player.getName() + " の前のサーバーでの保存完了を確認できませんでした。データを引き継いで続行します。");
+                }
+                
                 // プレイヤーがまだオンラインか確認
                 if (!player.isOnline()) return;
                 
-                // プレイヤー名を更新（v1.5.0: Bungeecord版での表示用）
-                plugin.getStorage().updatePlayerName(playerId, player.getName());
-                
-                try {
-                    boolean synced = plugin.getStorage().syncPlayerData(playerId);
-                    if (!synced) {
-                        plugin.getLogger().warning(plugin.getMessage("auto-sync-failed", 
-                            "&eプレイヤー %player% のデータ同期に失敗しました。ローカルデータを使用します。",
-                            "%player%", player.getName()));
-                    }
-                } catch (Exception e) {
-                    plugin.getLogger().severe(plugin.getMessage("auto-sync-error",
-                        "&cプレイヤー %player% のデータ同期中にエラーが発生しました: %error%",
-                        "%player%", player.getName(), "%error%", e.getMessage()));
-                }
-                
-                // 非同期スレッドでデータを事前に読み込む（メインスレッドのブロックを防ぐ）
+                // 非同期スレッドで最新の行をまとめて読み込む（メインスレッドのブロックを防ぐ）
+                // 引き継ぎの完了後に読み込むため、別途同期する必要はない
+                plugin.getStorage().loadPlayer(playerId);
                 final double cumulativeMinutes;
                 final String lastReward;
                 try {
-                    cumulativeMinutes = plugin.getStorage().getCumulative(playerId);
-                    lastReward = plugin.getStorage().getLastReward(playerId);
+                    PlayerRecord record = plugin.getStorage().loadRecord(playerId);
+                    cumulativeMinutes = record != null ? record.getCumulativeFor(plugin.getResetDate()) : 0.0;
+                    lastReward = record != null ? record.getLastReward() : null;
                 } catch (Exception e) {
                     plugin.getLogger().severe("プレイヤーデータの読み込みに失敗しました: " + e.getMessage());
                     return;
@@ -80,416 +107,254 @@ public class EventListener implements Listener {
                 plugin.getServer().getScheduler().runTask(plugin, () -> {
                     // プレイヤーがまだオンラインか確認
                     if (player.isOnline()) {
-                        setupPlayerTrackingWithData(player, playerId, cumulativeMinutes, lastReward);
+                        startTracking(player, cumulativeMinutes, lastReward);
                     }
                 });
-            }, 10L); // 10 ticks = 500ms の遅延
+            });
         } else {
             // MySQL以外の場合は同期的にトラッキングを開始
-            setupPlayerTracking(player, playerId);
-        }
-    }
-
-    private void setupPlayerTracking(Player player, UUID playerId) {
-        // 現在のリセット日付を取得
-        String today = plugin.getResetDate();
-        currentDates.put(playerId, today);
-
-        // 累積ログイン時間を取得 (デフォルト0.0)
-        double cumulativeMinutes = plugin.getStorage().getCumulative(playerId);
-        cumulativeMinutesMap.put(playerId, cumulativeMinutes);
-
-        // 目標時間を取得
-        int targetMinutes = plugin.getConfig().getInt("reward-time", 30);
-
-        // 既に達成済みか確認
-        String lastReward = plugin.getStorage().getLastReward(playerId);
-        boolean alreadyRewarded = today.equals(lastReward);
-
-        if (alreadyRewarded) {
-            // 既に報酬を受け取っている場合、何もしない
-            return;
-        }
-
-        // ログイン開始時間を記録
-        loginTimes.put(playerId, System.currentTimeMillis());
-
-        // ボスバーを作成
-        String bossBarTitleTemplate = plugin.getConfig().getString("boss-bar-title", "&a報酬まで残り: %remaining%");
-        String bossBarColorStr = plugin.getConfig().getString("boss-bar-color", "BLUE");
-        String bossBarStyleStr = plugin.getConfig().getString("boss-bar-style", "SOLID");
-        BarColor bossBarColor;
-        BarStyle bossBarStyle;
-        try {
-            bossBarColor = BarColor.valueOf(bossBarColorStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("無効なボスバーカラー: " + bossBarColorStr + " - デフォルトのBLUEを使用します");
-            bossBarColor = BarColor.BLUE;
-        }
-        try {
-            bossBarStyle = BarStyle.valueOf(bossBarStyleStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("無効なボスバースタイル: " + bossBarStyleStr + " - デフォルトのSOLIDを使用します");
-            bossBarStyle = BarStyle.SOLID;
-        }
-        double remainingMinutes = targetMinutes - cumulativeMinutes;
-        int remainingSeconds = (int) Math.ceil(Math.max(remainingMinutes, 0.0) * 60);
-        String title = bossBarTitleTemplate.replace("%remaining%", formatTime(remainingSeconds));
-        BossBar bossBar = plugin.getServer().createBossBar(ChatColor.translateAlternateColorCodes('&', title), bossBarColor, bossBarStyle);
-        bossBar.setProgress(Math.min(cumulativeMinutes / targetMinutes, 1.0));
-        bossBar.addPlayer(player);
-        bossBars.put(playerId, bossBar);
-
-        // 毎秒更新タスク
-        BukkitTask updateTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                // 現在の累積時間を計算
-                Long loginStart = loginTimes.get(playerId);
-                if (loginStart == null || loginStart == 0) return;
-                long currentTime = System.currentTimeMillis();
-                double additionalMinutes = (currentTime - loginStart) / 60000.0; // ミリ秒から分に変換
-                Double baseCumulative = cumulativeMinutesMap.get(playerId);
-                if (baseCumulative == null) baseCumulative = 0.0;
-                double currentCumulative = baseCumulative + additionalMinutes;
-                double currentRemaining = targetMinutes - currentCumulative;
-                int currentRemainingSeconds = (int) Math.ceil(Math.max(currentRemaining, 0.0) * 60);
-
-                // 日付変更チェック
-                String currentDate = plugin.getResetDate();
-                if (!currentDate.equals(currentDates.get(playerId))) {
-                    // 日付が変わったので、新しいカウントを開始
-                    currentDates.put(playerId, currentDate);
-                    // 累積時間を0にリセット
-                    plugin.getStorage().setCumulative(playerId, 0.0);
-                    plugin.savePlayerDataAsync();
-                    cumulativeMinutesMap.put(playerId, 0.0);
-                    // ログイン開始時間を現在時刻にリセット
-                    loginTimes.put(playerId, System.currentTimeMillis());
-                    // ボスバーを更新
-                    double newCumulativeMinutes = 0.0;
-                    double newRemainingMinutes = targetMinutes - newCumulativeMinutes;
-                    int newRemainingSeconds = (int) Math.ceil(Math.max(newRemainingMinutes, 0.0) * 60);
-                    String updatedTitle = bossBarTitleTemplate.replace("%remaining%", formatTime(newRemainingSeconds));
-                    bossBar.setTitle(ChatColor.translateAlternateColorCodes('&', updatedTitle));
-                    bossBar.setProgress(0.0);
-                    // 累積時間をリセット
-                    currentCumulative = 0.0;
-                }
-
-                // ボスバーを更新
-                String updatedTitle = bossBarTitleTemplate.replace("%remaining%", formatTime(currentRemainingSeconds));
-                bossBar.setTitle(ChatColor.translateAlternateColorCodes('&', updatedTitle));
-                bossBar.setProgress(Math.min(currentCumulative / targetMinutes, 1.0));
-
-                // 目標に達したら報酬を与える
-                if (currentCumulative >= targetMinutes) {
-                    giveReward(player, currentDates.get(playerId), true, true);
-                    cancel();
-                }
-            }
-        }.runTaskTimer(plugin, 0L, 20L); // 毎秒
-
-        updateTasks.put(playerId, updateTask);
-    }
-
-    /**
-     * 事前に読み込まれたデータを使用してプレイヤートラッキングを設定する
-     * MySQL使用時に非同期でデータを読み込んだ後、メインスレッドで呼び出される
-     */
-    private void setupPlayerTrackingWithData(Player player, UUID playerId, double cumulativeMinutes, String lastReward) {
-        // 現在のリセット日付を取得
-        String today = plugin.getResetDate();
-        currentDates.put(playerId, today);
-
-        // 累積ログイン時間を設定（事前に読み込み済み）
-        cumulativeMinutesMap.put(playerId, cumulativeMinutes);
-
-        // 目標時間を取得
-        int targetMinutes = plugin.getConfig().getInt("reward-time", 30);
-
-        // 既に達成済みか確認（事前に読み込み済みのlastRewardを使用）
-        boolean alreadyRewarded = today.equals(lastReward);
-
-        if (alreadyRewarded) {
-            // 既に報酬を受け取っている場合、何もしない
-            return;
+            plugin.getStorage().loadPlayer(playerId);
+            startTracking(player);
         }
-
-        // ログイン開始時間を記録
-        loginTimes.put(playerId, System.currentTimeMillis());
-
-        // ボスバーを作成
-        String bossBarTitleTemplate = plugin.getConfig().getString("boss-bar-title", "&a報酬まで残り: %remaining%");
-        String bossBarColorStr = plugin.getConfig().getString("boss-bar-color", "BLUE");
-        String bossBarStyleStr = plugin.getConfig().getString("boss-bar-style", "SOLID");
-        BarColor bossBarColor;
-        BarStyle bossBarStyle;
-        try {
-            bossBarColor = BarColor.valueOf(bossBarColorStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("無効なボスバーカラー: " + bossBarColorStr + " - デフォルトのBLUEを使用します");
-            bossBarColor = BarColor.BLUE;
-        }
-        try {
-            bossBarStyle = BarStyle.valueOf(bossBarStyleStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("無効なボスバースタイル: " + bossBarStyleStr + " - デフォルトのSOLIDを使用します");
-            bossBarStyle = BarStyle.SOLID;
-        }
-        double remainingMinutes = targetMinutes - cumulativeMinutes;
-        int remainingSeconds = (int) Math.ceil(Math.max(remainingMinutes, 0.0) * 60);
-        String title = bossBarTitleTemplate.replace("%remaining%", formatTime(remainingSeconds));
-        BossBar bossBar = plugin.getServer().createBossBar(ChatColor.translateAlternateColorCodes('&', title), bossBarColor, bossBarStyle);
-        bossBar.setProgress(Math.min(cumulativeMinutes / targetMinutes, 1.0));
-        bossBar.addPlayer(player);
-        bossBars.put(playerId, bossBar);
-
-        // 毎秒更新タスク
-        BukkitTask updateTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                // 現在の累積時間を計算
-                Long loginStart = loginTimes.get(playerId);
-                if (loginStart == null || loginStart == 0) return;
-                long currentTime = System.currentTimeMillis();
-                double additionalMinutes = (currentTime - loginStart) / 60000.0; // ミリ秒から分に変換
-                Double baseCumulative = cumulativeMinutesMap.get(playerId);
-                if (baseCumulative == null) baseCumulative = 0.0;
-                double currentCumulative = baseCumulative + additionalMinutes;
-                double currentRemaining = targetMinutes - currentCumulative;
-                int currentRemainingSeconds = (int) Math.ceil(Math.max(currentRemaining, 0.0) * 60);
-
-                // 日付変更チェック
-                String currentDate = plugin.getResetDate();
-                if (!currentDate.equals(currentDates.get(playerId))) {
-                    // 日付が変わったので、新しいカウントを開始
-                    currentDates.put(playerId, currentDate);
-                    // 累積時間を0にリセット
-                    plugin.getStorage().setCumulative(playerId, 0.0);
-                    plugin.savePlayerDataAsync();
-                    cumulativeMinutesMap.put(playerId, 0.0);
-                    // ログイン開始時間を現在時刻にリセット
-                    loginTimes.put(playerId, System.currentTimeMillis());
-                    // ボスバーを更新
-                    double newCumulativeMinutes = 0.0;
-                    double newRemainingMinutes = targetMinutes - newCumulativeMinutes;
-                    int newRemainingSeconds = (int) Math.ceil(Math.max(newRemainingMinutes, 0.0) * 60);
-                    String updatedTitle = bossBarTitleTemplate.replace("%remaining%", formatTime(newRemainingSeconds));
-                    bossBar.setTitle(ChatColor.translateAlternateColorCodes('&', updatedTitle));
-                    bossBar.setProgress(0.0);
-                    // 累積時間をリセット
-                    currentCumulative = 0.0;
-                }
-
-                // ボスバーを更新
-                String updatedTitle = bossBarTitleTemplate.replace("%remaining%", formatTime(currentRemainingSeconds));
-                bossBar.setTitle(ChatColor.translateAlternateColorCodes('&', updatedTitle));
-                bossBar.setProgress(Math.min(currentCumulative / targetMinutes, 1.0));
-
-                // 目標に達したら報酬を与える
-                if (currentCumulative >= targetMinutes) {
-                    giveReward(player, currentDates.get(playerId), true, true);
-                    cancel();
-                }
-            }
-        }.runTaskTimer(plugin, 0L, 20L); // 毎秒
-
-        updateTasks.put(playerId, updateTask);
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         UUID playerId = event.getPlayer().getUniqueId();
+        if (!storageReady) {
+            // トラッキングを開始していないため、保留を取り消すだけでよい
+            pendingJoins.remove(playerId);
+            return;
+        }
 
         // 累積時間を保存
         saveCumulativeTime(playerId);
 
-        // タスクとボスバーをクリア
-        if (updateTasks.containsKey(playerId)) {
-            updateTasks.get(playerId).cancel();
-            updateTasks.remove(playerId);
-        }
-        if (bossBars.containsKey(playerId)) {
-            bossBars.get(playerId).removeAll();
-            bossBars.remove(playerId);
-        }
-        loginTimes.remove(playerId);
-        currentDates.remove(playerId);
-        cumulativeMinutesMap.remove(playerId);
+        // トラッキングを終了
+        cancelTasksForPlayer(playerId);
+
+        // 未保存のデータを書き込んでキャッシュから解放
+        plugin.getStorage().unloadPlayer(playerId);
     }
 
     private void saveCumulativeTime(UUID playerId) {
-        Long loginStart = loginTimes.get(playerId);
-        if (loginStart == null || loginStart == 0L) return;
-        
-        // cumulativeMinutesMapから現在のセッション開始時の累積時間を取得
-        Double baseCumulative = cumulativeMinutesMap.get(playerId);
-        if (baseCumulative == null) {
-            baseCumulative = 0.0;
-        }
-        
-        long currentTime = System.currentTimeMillis();
-        double additionalMinutes = (currentTime - loginStart) / 60000.0;
-        double newCumulative = baseCumulative + additionalMinutes;
+        TrackingState state = trackedPlayers.get(playerId);
+        if (state == null) return;
         
-        // 累積時間を保存（MySQL使用時は即座にDBに書き込まれる）
-        plugin.getStorage().setCumulative(playerId, newCumulative);
+        // 前回の保存以降に増えた時間だけを加算する（読み込み不要で、他のサーバーの加算を上書きしない）
+        double minutes = state.takeUnsavedMinutes(System.currentTimeMillis());
+        plugin.getStorage().addCumulative(playerId, minutes, state.resetDate);
         
-        // MySQL使用時は同期的に保存が完了するのを待つ（サーバー間移動時のデータ損失を防ぐ）
         String storageType = plugin.getConfig().getString("storage-type", "yaml").toLowerCase();
         if (storageType.equals("mysql")) {
-            // MySQLは setCumulative で即座に書き込まれるので追加の待機は不要
-            plugin.getLogger().fine("プレイヤー " + playerId + " の累積時間を保存しました: " + newCumulative + " 分");
+            // MySQLはキャッシュの退出処理で書き込まれるので追加の保存は不要
+            plugin.getLogger().fine("プレイヤー " + playerId + " の累積時間を加算しました: " + minutes + " 分");
         } else {
             plugin.savePlayerDataAsync();
         }
     }
 
+    /**
+     * 報酬を付与する
+     * @see #giveRewards(Collection, String, boolean, boolean)
+     */
     public void giveReward(Player player, String today, boolean setLastReward, boolean updateStreak) {
-        UUID playerId = player.getUniqueId();
-
-        // ストリークを取得
-        int streak = plugin.getStorage().getStreak(playerId);
+        giveRewards(Collections.singletonList(player), today, setLastReward, updateStreak);
+    }
 
-        if (updateStreak && plugin.getConfig().getBoolean("streak-enabled", true)) {
-            // ストリークを計算
-            String lastStreakDateStr = plugin.getStorage().getLastStreakDate(playerId);
-            boolean shouldContinueStreak = false;
-            
-            if (lastStreakDateStr != null && !lastStreakDateStr.isEmpty()) {
+    /**
+     * 複数のプレイヤーに報酬を付与する
+     * トラッキングの終了はその場でメインスレッドで行い、ストレージの読み書きとストリークの計算は非同期で行います。
+     * 通常の受け取り（setLastReward と updateStreak が両方true）は {@link me.kubota6646.loginbonus.storage.StorageInterface#claimDailyReward}
+     * で1人ずつ受け取りを確定させ、受け取りに成功したプレイヤーにのみ渡します（他のサーバーや二重の呼び出しで重複して付与しない）。
+     * 強制付与は全員分の読み込みと書き込みをそれぞれ1回の一括処理にまとめます。
+     * 保存後にメインスレッドでアイテムとメッセージを渡します。
+     */
+    public void giveRewards(Collection<? extends Player> players, String today, boolean setLastReward, boolean updateStreak) {
+        // 非同期処理の完了前に二重で付与されないよう、先にトラッキングを終了する
+        // 受け取りに失敗した場合にトラッキングを再開できるよう、終了時点の累積時間と連続失敗回数を残しておく
+        List<Player> targets = new ArrayList<>(players);
+        Map<UUID, Double> cumulatives = new HashMap<>();
+        Map<UUID, Integer> claimFailures = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (Player player : targets) {
+            TrackingState state = trackedPlayers.get(player.getUniqueId());
+            if (state != null) {
+                cumulatives.put(player.getUniqueId(), state.currentCumulative(now));
+                claimFailures.put(player.getUniqueId(), state.claimFailures);
+            }
+            cancelTasksForPlayer(player.getUniqueId());
+        }
+        boolean claim = setLastReward && updateStreak;
+        boolean streakEnabled = updateStreak && plugin.getConfig().getBoolean("streak-enabled", true);
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            Map<UUID, Integer> streaks = new HashMap<>();
+            List<Player> failed = new ArrayList<>();
+            List<SyncMessage> notifications = new ArrayList<>();
+            if (claim) {
+                // 1人の失敗で他のプレイヤーの受け取り済みの報酬が渡されなくならないよう、1人ずつ処理する
+                claimRewards(targets, today, streakEnabled, streaks, failed);
+            } else {
                 try {
-                    // 現在のリセット日付から日付部分を取得
-                    LocalDate currentResetDate;
-                    if (today.length() > 10) {
-                        currentResetDate = LocalDate.parse(today.substring(0, 10));
-                    } else {
-                        currentResetDate = LocalDate.parse(today);
+                    saveRewards(targets, today, setLastReward, streakEnabled, streaks, notifications);
+                } catch (Exception e) {
+                    plugin.getLogger().severe("報酬データの保存に失敗しました: " + e.getMessage());
+                    return;
+                }
+            }
+            if (claim) {
+                for (Map.Entry<UUID, Integer> entry : streaks.entrySet()) {
+                    notifications.add(SyncMessage.updated(entry.getKey(), entry.getValue()));
+                }
+            }
+            // 他のサーバーとBungeecord版のストリーク表示に通知
+            plugin.getSyncChannel().publishAll(notifications);
+
+            // アイテムとメッセージはメインスレッドで渡す
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                long failedAt = System.currentTimeMillis();
+                for (Player player : failed) {
+                    // 受け取りを確定できなかったプレイヤーはトラッキングを再開し、失敗が続くほど間隔を空けて再度受け取りを試みる
+                    if (player.isOnline() && !trackedPlayers.containsKey(player.getUniqueId())) {
+                        startTracking(player, cumulatives.getOrDefault(player.getUniqueId(), 0.0), null);
+                        TrackingState state = trackedPlayers.get(player.getUniqueId());
+                        if (state != null) {
+                            state.delayClaim(claimFailures.getOrDefault(player.getUniqueId(), 0) + 1, failedAt);
+                        }
                     }
-                    
-                    // 最後のストリーク日付から日付部分を取得
-                    LocalDate lastStreakDate;
-                    if (lastStreakDateStr.length() > 10) {
-                        lastStreakDate = LocalDate.parse(lastStreakDateStr.substring(0, 10));
+                }
+                for (Player player : targets) {
+                    Integer streak = streaks.get(player.getUniqueId());
+                    if (streak == null) {
+                        continue;
+                    }
+                    if (player.isOnline()) {
+                        deliverReward(player, streak);
                     } else {
-                        lastStreakDate = LocalDate.parse(lastStreakDateStr);
+                        plugin.getLogger().warning("プレイヤー " + player.getName() + " が報酬の受け取り前にログアウトしました");
                     }
-                    
-                    // 前回のリセット日付を計算（currentResetDateの1日前）
-                    LocalDate previousResetDate = currentResetDate.minusDays(1);
-                    
-                    // 最後のストリーク日付が前回のリセット日付と一致する場合、ストリークを継続
-                    shouldContinueStreak = lastStreakDate.equals(previousResetDate);
-                } catch (java.time.format.DateTimeParseException e) {
-                    plugin.getLogger().warning("日付の解析に失敗しました (player=" + player.getName() + ", date=" + lastStreakDateStr + "): " + e.getMessage());
-                    // 解析に失敗した場合はストリークを継続しない（リセット）
-                    shouldContinueStreak = false;
                 }
+            });
+        });
+    }
+
+    /**
+     * 今日の報酬の受け取りをストレージで確定させる（非同期スレッドから呼び出すこと）
+     * @param streaks 受け取りに成功したプレイヤーの受け取り後のストリークを格納するMap
+     * @param failed ストレージのエラーにより受け取りを確定できなかったプレイヤーを追加するリスト
+     */
+    private void claimRewards(List<Player> targets, String today, boolean updateStreak, Map<UUID, Integer> streaks, List<Player> failed) {
+        for (Player player : targets) {
+            ClaimResult result;
+            try {
+                result = plugin.getStorage().claimDailyReward(player.getUniqueId(), today, updateStreak);
+            } catch (RuntimeException e) {
+                plugin.getLogger().severe("プレイヤー " + player.getName() + " の報酬の受け取り処理中にエラーが発生しました: " + e.getMessage());
+                result = ClaimResult.FAILED;
             }
-            
-            if (shouldContinueStreak) {
-                // 前回のリセット日にログインしていた場合、ストリークを継続
-                streak = plugin.getStorage().getStreak(playerId) + 1;
+            if (result.isClaimed()) {
+                streaks.put(player.getUniqueId(), result.getStreak());
+            } else if (result.isFailed()) {
+                plugin.getLogger().warning("プレイヤー " + player.getName() + " の報酬の受け取りを確定できませんでした。トラッキングを再開して再度試みます");
+                failed.add(player);
             } else {
-                // 前回のリセット日にログインしていない場合、または初回ログインの場合、ストリークをリセット
-                streak = 1;
+                plugin.getLogger().fine("プレイヤー " + player.getName() + " は今日の報酬を既に受け取っています");
             }
-            
-            plugin.getStorage().setStreak(playerId, streak);
-            plugin.getStorage().setLastStreakDate(playerId, today);
         }
+    }
 
-        // 基本報酬を与える
-        giveItems(player, plugin.getConfig().getMapList("reward-items"), streak - 1);
-
-        // 特殊ストリーク報酬を与える
-        if (plugin.getConfig().getBoolean("special_streak_rewards.enabled", false)) {
-            String streakKey = String.valueOf(streak);
-            if (plugin.getConfig().isConfigurationSection("special_streak_rewards.rewards." + streakKey)) {
-                List<Map<?, ?>> items = plugin.getConfig().getMapList("special_streak_rewards.rewards." + streakKey + ".items");
-                giveItems(player, items, 0);
-                String message = plugin.getConfig().getString("special_streak_rewards.rewards." + streakKey + ".message");
-                if (message != null) {
-                    player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
-                }
+    /**
+     * ストリークと受け取り状況を全員分まとめて計算して保存する（強制付与用、非同期スレッドから呼び出すこと）
+     * @param streaks 全員の付与後のストリークを格納するMap
+     * @param notifications 変更があったプレイヤーの通知を追加するリスト
+     */
+    private void saveRewards(List<Player> targets, String today, boolean setLastReward, boolean updateStreak,
+                             Map<UUID, Integer> streaks, List<SyncMessage> notifications) {
+        List<UUID> playerIds = new ArrayList<>();
+        for (Player player : targets) {
+            playerIds.add(player.getUniqueId());
+        }
+        Map<UUID, PlayerRecord> records = plugin.getStorage().loadRecords(playerIds);
+        List<PlayerRecord> changed = new ArrayList<>();
+        for (Player player : targets) {
+            PlayerRecord record = records.get(player.getUniqueId());
+            if (record == null) {
+                record = PlayerRecord.empty(player.getUniqueId());
+            }
+            PlayerRecord updated = calculateReward(record, today, setLastReward, updateStreak);
+            streaks.put(player.getUniqueId(), updated.getStreak());
+            if (updated != record) {
+                changed.add(updated);
+                notifications.add(SyncMessage.updated(updated.getPlayerId(), updated.getStreak()));
             }
         }
-
-        // 特殊倍数ストリーク報酬を与える
-        if (plugin.getConfig().getBoolean("special_multiple_rewards.enabled", true)) {
-            ConfigurationSection multiplesSection = plugin.getConfig().getConfigurationSection("special_multiple_rewards.multiples");
-            if (multiplesSection != null) {
-                int maxMultiple = 0;
-                for (String multipleKey : multiplesSection.getKeys(false)) {
-                    int multiple = Integer.parseInt(multipleKey);
-                    if (streak % multiple == 0 && streak > 0 && multiple > maxMultiple) {
-                        maxMultiple = multiple;
-                    }
-                }
-                if (maxMultiple > 0) {
-                    List<Map<?, ?>> items = plugin.getConfig().getMapList("special_multiple_rewards.multiples." + maxMultiple + ".items");
-                    giveItems(player, items, 0);
-                    String message = plugin.getConfig().getString("special_multiple_rewards.multiples." + maxMultiple + ".message");
-                    if (message != null) {
-                        message = message.replace("%days%", String.valueOf(streak));
-                        player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
-                    }
-                }
+        if (!changed.isEmpty()) {
+            // ストリークと受け取り状況を1回の書き込みで保存
+            plugin.getStorage().saveRecords(changed);
+            if (setLastReward) {
+                plugin.savePlayerDataAsync();
             }
         }
+    }
 
-        // 報酬受け取りメッセージ
-        String rewardMsg = plugin.getMessages().getString("reward-message", "&e報酬を受け取りました！");
-        player.sendMessage(ChatColor.translateAlternateColorCodes('&', rewardMsg));
+    /**
+     * ストリークと受け取り状況を計算する（ストレージやBukkit APIには触れないため、非同期スレッドから呼び出せます）
+     * @return 更新後のプレイヤーデータ（変更がない場合は引数と同じインスタンス）
+     */
+    private PlayerRecord calculateReward(PlayerRecord record, String today, boolean setLastReward, boolean updateStreak) {
+        if (updateStreak) {
+            // 前回のリセット日にログインしていた場合はストリークを継続し、それ以外はリセット
+            record = record.withStreakUpdatedFor(today);
+        }
 
         // 受け取り状況を記録
         if (setLastReward) {
             // 累積時間を0にリセットし、最終報酬日を設定
-            plugin.getStorage().setCumulative(playerId, 0.0);
-            plugin.getStorage().setLastReward(playerId, today);
-            // 同期的に保存を完了させる
-            plugin.getStorage().saveAsync().join();
+            record = record.withCumulative(0.0).withLastReward(today);
         }
+        return record;
+    }
 
-        // タスクとボスバーをクリア
-        if (updateTasks.containsKey(playerId)) {
-            updateTasks.get(playerId).cancel();
-            updateTasks.remove(playerId);
+    /**
+     * 報酬アイテムとメッセージを渡す（メインスレッドで呼び出すこと）
+     */
+    private void deliverReward(Player player, int streak) {
+        RewardTable rewardTable = plugin.getRewardTable();
+
+        // 基本報酬を与える
+        giveItems(player, rewardTable.getBaseItems(), streak - 1);
+
+        // 特殊ストリーク報酬を与える
+        RewardTable.SpecialReward streakReward = rewardTable.getStreakReward(streak);
+        if (streakReward != null) {
+            giveItems(player, streakReward.getItems(), 0);
+            if (streakReward.getMessage() != null) {
+                player.sendMessage(streakReward.getMessage());
+            }
         }
-        if (bossBars.containsKey(playerId)) {
-            bossBars.get(playerId).removeAll();
-            bossBars.remove(playerId);
+
+        // 特殊倍数ストリーク報酬を与える
+        RewardTable.SpecialReward multipleReward = rewardTable.getMultipleReward(streak);
+        if (multipleReward != null) {
+            giveItems(player, multipleReward.getItems(), 0);
+            if (multipleReward.getMessage() != null) {
+                player.sendMessage(multipleReward.getMessage().replace("%days%", String.valueOf(streak)));
+            }
         }
-        loginTimes.remove(playerId);
-        currentDates.remove(playerId);
-        cumulativeMinutesMap.remove(playerId);
+
+        // 報酬受け取りメッセージ
+        player.sendMessage(plugin.getMessage("reward-message", "&e報酬を受け取りました！"));
     }
 
-    private void giveItems(Player player, List<Map<?, ?>> items, int extraAmount) {
+    private void giveItems(Player player, List<RewardTable.RewardItem> items, int extraAmount) {
         if (items.isEmpty()) return;
-        List<ItemStack> itemStacks = new ArrayList<>();
-        for (Map<?, ?> itemMap : items) {
-            String itemName = (String) itemMap.get("item");
-            if (itemName == null) itemName = (String) itemMap.get("type");
-            if (itemName == null) {
-                plugin.getLogger().warning("アイテム設定にitem/typeが見つかりません");
-                continue;
-            }
-            Integer baseAmount = (Integer) itemMap.get("amount");
-            if (baseAmount == null) {
-                plugin.getLogger().warning("アイテム " + itemName + " のamountが設定されていません");
-                continue;
-            }
-            int amount = baseAmount + extraAmount;
-            Material material = Material.getMaterial(itemName.toUpperCase());
-            if (material != null) {
-                itemStacks.add(new ItemStack(material, amount));
-            } else {
-                plugin.getLogger().warning("無効なアイテム名: " + itemName);
-            }
+        ItemStack[] itemStacks = new ItemStack[items.size()];
+        for (int i = 0; i < itemStacks.length; i++) {
+            RewardTable.RewardItem item = items.get(i);
+            itemStacks[i] = new ItemStack(item.getMaterial(), item.getAmount() + extraAmount);
         }
-        if (itemStacks.isEmpty()) return;
-        Map<Integer, ItemStack> returned = player.getInventory().addItem(itemStacks.toArray(new ItemStack[0]));
+        Map<Integer, ItemStack> returned = player.getInventory().addItem(itemStacks);
         if (!returned.isEmpty()) {
             // インベントリが満杯の場合、入りきらなかったアイテムを地面にドロップ
             for (ItemStack leftover : returned.values()) {
@@ -498,31 +363,57 @@ public class EventListener implements Listener {
         }
     }
 
+    /**
+     * 他のサーバーでの変更をトラッキングに反映する（メインスレッドで呼び出すこと）
+     * @param player 対象のプレイヤー
+     * @param record 読み直したプレイヤーデータ（存在しない場合はnull）
+     * @param resetPlaytime 累積時間がリセットされた場合true（保存済みの値からトラッキングをやり直す）
+     */
+    public void applyRemoteChange(Player player, PlayerRecord record, boolean resetPlaytime) {
+        double cumulativeMinutes = record != null ? record.getCumulativeFor(plugin.getResetDate()) : 0.0;
+        String lastReward = record != null ? record.getLastReward() : null;
+        if (resetPlaytime) {
+            startTracking(player, cumulativeMinutes, lastReward);
+            return;
+        }
+        // このサーバーでのセッションの累積時間は維持し、報酬を受け取り済みになった場合のみトラッキングを終了する
+        if (plugin.getResetDate().equals(lastReward)) {
+            cancelTasksForPlayer(player.getUniqueId());
+        }
+    }
+
     public void cancelTasksForPlayer(UUID playerId) {
-        // タスクとボスバーをクリア
-        if (updateTasks.containsKey(playerId)) {
-            updateTasks.get(playerId).cancel();
-            updateTasks.remove(playerId);
-        }
-        if (bossBars.containsKey(playerId)) {
-            bossBars.get(playerId).removeAll();
-            bossBars.remove(playerId);
-        }
-        loginTimes.remove(playerId);
-        currentDates.remove(playerId);
-        cumulativeMinutesMap.remove(playerId);
+        // トラッキング状態とボスバーをクリア
+        TrackingState state = trackedPlayers.remove(playerId);
+        if (state != null) {
+            state.bossBar.remove();
+        }
     }
 
     public void cancelAllTasks() {
-        // すべてのプレイヤーのタスクとボスバーをクリア
-        for (UUID playerId : new HashSet<>(updateTasks.keySet())) {
+        // すべてのプレイヤーのトラッキングとボスバーをクリア
+        for (UUID playerId : new HashSet<>(trackedPlayers.keySet())) {
             cancelTasksForPlayer(playerId);
         }
+        if (ticker != null) {
+            ticker.cancel();
+            ticker = null;
+        }
     }
 
     public void saveAllCumulativeTimes() {
-        for (Player player : plugin.getServer().getOnlinePlayers()) {
-            saveCumulativeTime(player.getUniqueId());
+        // トラッキング中の全プレイヤーの未保存の時間をリセット日付ごとにまとめる
+        long now = System.currentTimeMillis();
+        Map<String, Map<UUID, Double>> minutesByDate = new HashMap<>();
+        for (TrackingState state : trackedPlayers.values()) {
+            minutesByDate.computeIfAbsent(state.resetDate, date -> new HashMap<>())
+                    .put(state.player.getUniqueId(), state.takeUnsavedMinutes(now));
+        }
+
+        // 読み込みなしの一括加算で書き込む
+        for (Map.Entry<String, Map<UUID, Double>> entry : minutesByDate.entrySet()) {
+            plugin.getStorage().addCumulatives(entry.getValue(), entry.getKey());
+            plugin.getLogger().fine(entry.getValue().size() + " 人の累積時間を加算しました");
         }
     }
 
@@ -532,133 +423,183 @@ public class EventListener implements Listener {
         startTracking(player);
     }
 
+    /**
+     * ストレージからデータを読み込んでトラッキングを開始する
+     */
     private void startTracking(Player player) {
         // オンラインチェック
         if (!player.isOnline()) {
             plugin.getLogger().fine("プレイヤー " + player.getName() + " はオフラインのためトラッキングを開始しません");
             return;
         }
-        
+
+        // 累積時間と最終報酬日をストレージからまとめて取得
+        PlayerRecord record = plugin.getStorage().loadRecord(player.getUniqueId());
+        double cumulativeMinutes = record != null ? record.getCumulativeFor(plugin.getResetDate()) : 0.0;
+        String lastReward = record != null ? record.getLastReward() : null;
+        startTracking(player, cumulativeMinutes, lastReward);
+    }
+
+    /**
+     * 読み込み済みのデータを使用してトラッキングを開始する
+     * MySQL使用時は非同期でデータを読み込んだ後、メインスレッドで呼び出される
+     */
+    private void startTracking(Player player, double cumulativeMinutes, String lastReward) {
         UUID playerId = player.getUniqueId();
 
-        // 既存のタスクとボスバーをクリア
+        // 既存のトラッキングとボスバーをクリア
         cancelTasksForPlayer(playerId);
 
-        // 日付を取得
-        String today = LocalDate.now().toString();
-        currentDates.put(playerId, today);
+        // 現在のリセット日付を取得
+        String today = plugin.getResetDate();
 
-        // 累積時間をストレージから取得
-        double cumulativeMinutes = plugin.getStorage().getCumulative(playerId);
-        cumulativeMinutesMap.put(playerId, cumulativeMinutes);
+        // 既に報酬を受け取っている場合、何もしない
+        if (today.equals(lastReward)) {
+            return;
+        }
 
-        // 目標時間を取得
+        // ボスバーを作成
         int targetMinutes = plugin.getConfig().getInt("reward-time", 30);
+        BossBarRenderer.View bossBar = plugin.getBossBarRenderer().create(player, targetMinutes, cumulativeMinutes);
 
-        // 既に達成済みか確認
-        String lastReward = plugin.getStorage().getLastReward(playerId);
-        boolean alreadyRewarded = today.equals(lastReward);
-
-        if (alreadyRewarded) {
-            return;
+        // 以降の更新は共通の更新タスクで行う
+        trackedPlayers.put(playerId, new TrackingState(player, bossBar, today, cumulativeMinutes, System.currentTimeMillis()));
+        if (ticker == null) {
+            startTicker();
         }
+    }
 
-        // ログイン開始時間を記録
-        loginTimes.put(playerId, System.currentTimeMillis());
+    private void startTicker() {
+        long interval = plugin.getBossBarRenderer().getUpdateIntervalTicks();
+        ticker = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, interval, interval);
+    }
 
-        // ボスバーを作成
-        String bossBarTitleTemplate = plugin.getConfig().getString("boss-bar-title", "&a報酬まで残り: %remaining%");
-        String bossBarColorStr = plugin.getConfig().getString("boss-bar-color", "BLUE");
-        String bossBarStyleStr = plugin.getConfig().getString("boss-bar-style", "SOLID");
-        BarColor bossBarColor;
-        BarStyle bossBarStyle;
-        try {
-            bossBarColor = BarColor.valueOf(bossBarColorStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("無効なボスバーカラー: " + bossBarColorStr + " - デフォルトのBLUEを使用します");
-            bossBarColor = BarColor.BLUE;
-        }
-        try {
-            bossBarStyle = BarStyle.valueOf(bossBarStyleStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("無効なボスバースタイル: " + bossBarStyleStr + " - デフォルトのSOLIDを使用します");
-            bossBarStyle = BarStyle.SOLID;
-        }
-        double remainingMinutes = targetMinutes - cumulativeMinutes;
-        int remainingSeconds = (int) Math.ceil(Math.max(remainingMinutes, 0.0) * 60);
-        String title = bossBarTitleTemplate.replace("%remaining%", formatTime(remainingSeconds));
-        BossBar bossBar = plugin.getServer().createBossBar(ChatColor.translateAlternateColorCodes('&', title), bossBarColor, bossBarStyle);
-        bossBar.setProgress(Math.min(cumulativeMinutes / targetMinutes, 1.0));
-        bossBar.addPlayer(player);
-        bossBars.put(playerId, bossBar);
-
-        // 毎秒更新タスク
-        BukkitTask updateTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                // 現在の累積時間を計算
-                Long loginStart = loginTimes.get(playerId);
-                if (loginStart == null || loginStart == 0) return;
-                long currentTime = System.currentTimeMillis();
-                double additionalMinutes = (currentTime - loginStart) / 60000.0; // ミリ秒から分に変換
-                Double baseCumulative = cumulativeMinutesMap.get(playerId);
-                if (baseCumulative == null) baseCumulative = 0.0;
-                double currentCumulative = baseCumulative + additionalMinutes;
-                double currentRemaining = targetMinutes - currentCumulative;
-                int currentRemainingSeconds = (int) Math.ceil(Math.max(currentRemaining, 0.0) * 60);
-
-                // 日付変更チェック
-                String currentDate = plugin.getResetDate();
-                if (!currentDate.equals(currentDates.get(playerId))) {
-                    // 日付が変わったので、新しいカウントを開始
-                    currentDates.put(playerId, currentDate);
-                    // 累積時間を0にリセット
-                    plugin.getStorage().setCumulative(playerId, 0.0);
-                    plugin.savePlayerDataAsync();
-                    cumulativeMinutesMap.put(playerId, 0.0);
-                    // ログイン開始時間を現在時刻にリセット
-                    loginTimes.put(playerId, System.currentTimeMillis());
-                    // ボスバーを更新
-                    double newCumulativeMinutes = 0.0;
-                    double newRemainingMinutes = targetMinutes - newCumulativeMinutes;
-                    int newRemainingSeconds = (int) Math.ceil(Math.max(newRemainingMinutes, 0.0) * 60);
-                    String updatedTitle = bossBarTitleTemplate.replace("%remaining%", formatTime(newRemainingSeconds));
-                    bossBar.setTitle(ChatColor.translateAlternateColorCodes('&', updatedTitle));
-                    bossBar.setProgress(0.0);
-                    // 累積時間をリセット
-                    currentCumulative = 0.0;
-                }
+    /**
+     * 設定のリロード後に、新しい更新間隔で更新タスクを再スケジュールする
+     */
+    public void reloadTicker() {
+        if (ticker != null) {
+            ticker.cancel();
+            startTicker();
+        }
+    }
 
-                // ボスバーを更新
-                String updatedTitle = bossBarTitleTemplate.replace("%remaining%", formatTime(currentRemainingSeconds));
-                bossBar.setTitle(ChatColor.translateAlternateColorCodes('&', updatedTitle));
-                bossBar.setProgress(Math.min(currentCumulative / targetMinutes, 1.0));
+    /**
+     * トラッキング中の全プレイヤーを更新する（boss-bar-update-interval ごと、デフォルトは毎秒）
+     * リセット日付と設定値は1回の更新につき1回だけ取得し、プレイヤーごとの処理は計算とボスバーの更新のみにする
+     */
+    private void tick() {
+        if (trackedPlayers.isEmpty()) return;
 
-                // 目標に達したら報酬を与える
-                if (currentCumulative >= targetMinutes) {
-                    giveReward(player, currentDates.get(playerId), true, true);
-                    cancel();
-                }
+        long now = System.currentTimeMillis();
+        String resetDate = plugin.getResetDate();
+        int targetMinutes = plugin.getConfig().getInt("reward-time", 30);
+        BossBarRenderer renderer = plugin.getBossBarRenderer();
+
+        List<Player> reached = new ArrayList<>();
+        for (TrackingState state : trackedPlayers.values()) {
+            // 日付変更チェック
+            if (!resetDate.equals(state.resetDate)) {
+                // 日付が変わったので、累積時間0から新しいカウントを開始
+                state.rollOver(resetDate, now);
             }
-        }.runTaskTimer(plugin, 0L, 20L); // 毎秒
 
-        updateTasks.put(playerId, updateTask);
-    }
+            double currentCumulative = state.currentCumulative(now);
+            renderer.update(state.bossBar, targetMinutes, currentCumulative);
+
+            // 目標に達したら報酬を与える（受け取りに失敗した後は再試行の時刻まで待つ）
+            if (currentCumulative >= targetMinutes && now >= state.nextClaimAttempt) {
+                reached.add(state.player);
+            }
+        }
 
-    private String formatTime(int totalSeconds) {
-        int minutes = totalSeconds / 60;
-        int seconds = totalSeconds % 60;
-        return String.format("%02d:%02d", minutes, seconds);
+        if (!reached.isEmpty()) {
+            giveRewards(reached, resetDate, true, true);
+        }
     }
 
+    /**
+     * 新しい日のトラッキングに切り替える（リセット時刻に呼び出し）
+     * 前日の累積時間は新しいリセット日付では0として読み込まれるため、ストレージへの書き込みは行いません。
+     * トラッキング中のプレイヤーはボスバーを残したままその場で切り替え、
+     * 前日の報酬を受け取ってトラッキングを終えていたプレイヤーのみ新たにトラッキングを開始します。
+     */
     public void restartTrackingForNewDay() {
-        // オンラインの全プレイヤーに対して、トラッキングを再開
+        if (!storageReady) {
+            // 保留中のプレイヤーは初期化の完了後に新しい日のトラッキングを開始する
+            return;
+        }
+        String today = plugin.getResetDate();
+        long now = System.currentTimeMillis();
         for (Player player : plugin.getServer().getOnlinePlayers()) {
-            UUID playerId = player.getUniqueId();
-            // 既存のトラッキングをキャンセル
-            cancelTasksForPlayer(playerId);
-            // 新しい日のトラッキングを開始
-            startTracking(player);
+            TrackingState state = trackedPlayers.get(player.getUniqueId());
+            if (state == null) {
+                // 新しい日のトラッキングを累積時間0から開始
+                startTracking(player, 0.0, null);
+            } else if (!today.equals(state.resetDate)) {
+                // ボスバーを残したまま、累積時間0から新しい日のトラッキングに切り替える
+                state.rollOver(today, now);
+            }
+            // 既に新しい日のトラッキング中（毎秒タスクで切り替え済み）の場合は何もしない
+        }
+    }
+
+    /**
+     * トラッキング中のプレイヤー1人分の状態
+     */
+    private static final class TrackingState {
+        private final Player player;
+        private final BossBarRenderer.View bossBar;
+        private String resetDate; // トラッキング中のリセット日付
+        private double baseCumulative; // セッション開始時の累積時間（分）
+        private long sessionStart; // セッション開始時刻（ミリ秒）
+        private long savedAt; // ストレージに加算済みの時刻（ミリ秒）
+        private int claimFailures; // 報酬の受け取りに連続で失敗した回数
+        private long nextClaimAttempt; // 次に受け取りを試みる時刻（ミリ秒）
+
+        private TrackingState(Player player, BossBarRenderer.View bossBar, String resetDate, double baseCumulative, long sessionStart) {
+            this.player = player;
+            this.bossBar = bossBar;
+            this.resetDate = resetDate;
+            this.baseCumulative = baseCumulative;
+            this.sessionStart = sessionStart;
+            this.savedAt = sessionStart;
+        }
+
+        private double currentCumulative(long now) {
+            return baseCumulative + (now - sessionStart) / 60000.0; // ミリ秒から分に変換
+        }
+
+        /**
+         * 新しいリセット日付に切り替え、累積時間0から数え直す
+         * 前日の未保存の時間は新しい日の累積時間には含まれないため破棄する
+         */
+        private void rollOver(String newResetDate, long now) {
+            resetDate = newResetDate;
+            baseCumulative = 0.0;
+            sessionStart = now;
+            savedAt = now;
+        }
+
+        /**
+         * 受け取りの失敗後、次の受け取りを試みるまで待つ
+         * 待ち時間は失敗が続くたびに倍になり、{@link #CLAIM_RETRY_MAX_MILLIS} を上限とする
+         * @param failures 連続で失敗した回数（1以上）
+         */
+        private void delayClaim(int failures, long now) {
+            claimFailures = failures;
+            long delay = CLAIM_RETRY_BASE_MILLIS << Math.min(failures - 1, 10);
+            nextClaimAttempt = now + Math.min(delay, CLAIM_RETRY_MAX_MILLIS);
+        }
+
+        /**
+         * 前回の保存以降に増えた時間を取得し、保存済みとして記録する
+         * @return 加算する時間（分）
+         */
+        private double takeUnsavedMinutes(long now) {
+            double minutes = (now - savedAt) / 60000.0;
+            savedAt = now;
+            return minutes;
         }
     }
 }
\ No newline at end of file
@@ -1,34 +1,50 @@
 package me.kubota6646.loginbonus;
 
+import me.kubota6646.loginbonus.storage.CachedStorage;
 import me.kubota6646.loginbonus.storage.StorageFactory;
 import me.kubota6646.loginbonus.storage.StorageInterface;
 import me.kubota6646.loginbonus.storage.YamlStorage;
+import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class Main extends JavaPlugin {
 
     private StorageInterface storage;
+    private final CompletableFuture<Void> storageReady = new CompletableFuture<>(); // ストレージの初期化完了
     private FileConfiguration messages;
     private File messagesFile;
     private EventListener eventListener;
-    private String lastCheckedDate; // 最後にチェックした日付
+    private RewardMigrateCommand rewardMigrateCommand;
+    private SyncChannel syncChannel;
+    private ResetClock resetClock; // リセット時刻で区切られた現在の期間
+    private volatile RewardTable rewardTable; // 解決済みの報酬設定
+    private volatile BossBarRenderer bossBarRenderer; // 解決済みのボスバー設定
+    private final Map<String, MessageTemplate> messageTemplates = new ConcurrentHashMap<>(); // message.yml のキーごとの解析済みテンプレート
+    private final Map<String, MessageTemplate> defaultMessageTemplates = new ConcurrentHashMap<>(); // デフォルトメッセージの解析済みテンプレート
+    private static final MessageTemplate MISSING_MESSAGE = MessageTemplate.compile("");
 
     @Override
     public void onEnable() {
+        long enableStart = System.nanoTime();
+        long phaseStart = enableStart;
+
         // messages.yml を初期化（saveDefaultConfig前に必要）
         messagesFile = new File(getDataFolder(), "message.yml");
         
         // 設定ファイルを保存
         saveDefaultConfig();
+        phaseStart = logPhase("設定の読み込み", phaseStart);
 
         // ストレージを初期化
         String storageType = getConfig().getString("storage-type", "yaml").toLowerCase();
@@ -38,15 +54,36 @@ public class Main extends JavaPlugin {
         }
         getLogger().info("ストレージタイプは " + storageType + " に設定されています。");
         storage = StorageFactory.createStorage(this, storageType);
-        storage.initialize();
+        if (getConfig().getBoolean("cache.enabled", true)) {
+            // オンラインプレイヤーのデータをメモリに保持し、書き込みをまとめる
+            storage = new CachedStorage(this, storage);
+        }
+        // 初期化（YAMLの読み込みやデータベースへの接続）はサーバーの起動を止めないよう別スレッドで行う
+        initializeStorageAsync();
+        phaseStart = logPhase("ストレージの作成", phaseStart);
 
         // messages.yml を保存
         saveDefaultMessages();
+        phaseStart = logPhase("メッセージの読み込み", phaseStart);
+
+        // リセット時刻を読み込み、次のリセット時刻に新しい日のトラッキングを開始するよう予約
+        resetClock = new ResetClock(this, () -> {
+            if (eventListener != null) {
+                eventListener.restartTrackingForNewDay();
+            }
+        });
+        resetClock.rebuild();
+        getLogger().info("リセット時刻は " + getConfig().getString("reset-time", "00:00") + " に設定されています（次のリセット: " + resetClock.getNextReset() + "）。");
+        phaseStart = logPhase("リセット時刻の設定", phaseStart);
 
         // イベントリスナーを登録
         eventListener = new EventListener(this);
         getServer().getPluginManager().registerEvents(eventListener, this);
 
+        // サーバー間のデータ変更通知を登録（MySQL使用時のみ）
+        syncChannel = new SyncChannel(this);
+        syncChannel.register();
+
         // コマンドを登録
         PluginCommand rewardStreakCmd = getCommand("rewardstreak");
         if (rewardStreakCmd != null) {
@@ -70,7 +107,8 @@ public class Main extends JavaPlugin {
         }
         PluginCommand rewardMigrateCmd = getCommand("rewardmigrate");
         if (rewardMigrateCmd != null) {
-            rewardMigrateCmd.setExecutor(new RewardMigrateCommand(this));
+            rewardMigrateCommand = new RewardMigrateCommand(this);
+            rewardMigrateCmd.setExecutor(rewardMigrateCommand);
         }
         PluginCommand rewardSyncCmd = getCommand("rewardsync");
         if (rewardSyncCmd != null) {
@@ -88,17 +126,18 @@ public class Main extends JavaPlugin {
         if (rewardMigrateNamesCmd != null) {
             rewardMigrateNamesCmd.setExecutor(new RewardMigrateNamesCommand(this));
         }
+        PluginCommand rewardStatsCmd = getCommand("rewardstats");
+        if (rewardStatsCmd != null) {
+            rewardStatsCmd.setExecutor(new RewardStatsCommand(this));
+        }
 
-        // 日付変更チェックタスクを開始
-        String resetTime = getConfig().getString("reset-time", "00:00");
-        getLogger().info("リセット時刻は " + resetTime + " に設定されています。");
-        lastCheckedDate = getCurrentResetDate();
-        startMidnightCheckTask();
+        phaseStart = logPhase("リスナーとコマンドの登録", phaseStart);
 
         // Plan連携を登録
         registerPlanDataExtension();
+        logPhase("Plan連携の登録", phaseStart);
 
-        getLogger().info("LoginBonusプラグインが有効化されました。");
+        getLogger().info("LoginBonusプラグインが有効化されました（" + elapsedMillis(enableStart) + "ms）。");
         getLogger().info("全プレイヤーのトラッキングを再開します。");
     }
 
@@ -116,19 +155,46 @@ public class Main extends JavaPlugin {
             eventListener.cancelAllTasks();
         }
 
+        if (syncChannel != null) {
+            syncChannel.unregister();
+        }
+
+        if (resetClock != null) {
+            resetClock.shutdown();
+        }
+
+        // 実行中のデータ移行を中止する（チェックポイントから再開できる）
+        if (rewardMigrateCommand != null) {
+            rewardMigrateCommand.cancelRunning();
+        }
+
         // 同期的にデータを保存（非同期保存の完了を待つ）
         if (storage != null) {
+            if (!storageReady.isDone()) {
+                // 初期化中に閉じないよう、初期化の完了を待つ
+                try {
+                    storageReady.get(10, TimeUnit.SECONDS);
+                } catch (java.util.concurrent.TimeoutException e) {
+                    getLogger().warning("ストレージの初期化の完了を待機中にタイムアウトしました");
+                } catch (Exception e) {
+                    // 初期化の失敗は初期化時に出力済み
+                }
+            }
+        }
+        if (storage != null && isStorageReady()) {
             try {
                 CompletableFuture<Void> saveFuture = storage.saveAsync();
                 // 最大10秒待機して保存の完了を確実にする
-                saveFuture.get(10, java.util.concurrent.TimeUnit.SECONDS);
+                saveFuture.get(10, TimeUnit.SECONDS);
                 getLogger().info("プレイヤーデータの保存が完了しました");
             } catch (java.util.concurrent.TimeoutException e) {
                 getLogger().warning("データ保存がタイムアウトしました: " + e.getMessage());
             } catch (Exception e) {
                 getLogger().severe("データ保存中にエラーが発生しました: " + e.getMessage());
             }
-            // ストレージを閉じる
+        }
+        if (storage != null) {
+            // ストレージを閉じる（初期化に失敗した場合も作成途中の接続を閉じる）
             storage.close();
         }
 
@@ -137,18 +203,129 @@ public class Main extends JavaPlugin {
 
     public void reloadConfig() {
         super.reloadConfig();
-        if (storage instanceof YamlStorage) {
-            ((YamlStorage) storage).reload();
+        // 報酬設定を解決し直す（getConfig() の初回呼び出し時にも実行される）
+        rewardTable = RewardTable.load(getConfig(), getLogger());
+        bossBarRenderer = BossBarRenderer.load(getConfig(), getLogger());
+        if (resetClock != null) {
+            resetClock.rebuild();
+        }
+        if (eventListener != null) {
+            eventListener.reloadTicker();
+        }
+        if (isStorageReady() && getBackendStorage() instanceof YamlStorage) {
+            ((YamlStorage) getBackendStorage()).reload();
         }
         if (messagesFile != null) {
             reloadMessages();
         }
     }
 
+    /**
+     * 読み込み済みの報酬テーブルを取得
+     * @return 報酬テーブル
+     */
+    public RewardTable getRewardTable() {
+        return rewardTable;
+    }
+
+    /**
+     * 読み込み済みのボスバー描画設定を取得
+     * @return ボスバー描画設定
+     */
+    public BossBarRenderer getBossBarRenderer() {
+        return bossBarRenderer;
+    }
+
     public StorageInterface getStorage() {
         return storage;
     }
 
+    /**
+     * ストレージの初期化完了を取得
+     * 初期化に失敗した場合は例外で完了します
+     * @return ストレージの初期化完了
+     */
+    public CompletableFuture<Void> getStorageReady() {
+        return storageReady;
+    }
+
+    /**
+     * ストレージの初期化が完了して使用可能か
+     * @return 使用可能な場合true
+     */
+    public boolean isStorageReady() {
+        return storageReady.isDone() && !storageReady.isCompletedExceptionally();
+    }
+
+    /**
+     * ストレージが使用可能か確認し、使用できない場合は送信者に通知する
+     * ストレージを使用するコマンドの実行前に呼び出します
+     * @return 使用可能な場合true
+     */
+    public boolean checkStorageReady(CommandSender sender) {
+        if (isStorageReady()) {
+            return true;
+        }
+        sender.sendMessage(getMessage("storage-not-ready", "&cストレージの準備ができていません。しばらくしてから再度お試しください。"));
+        return false;
+    }
+
+    /**
+     * ストレージを別スレッドで初期化する
+     * 完了後にメインスレッドで、初期化の完了前に参加したプレイヤーのトラッキングを開始します
+     */
+    private void initializeStorageAsync() {
+        StorageInterface target = storage;
+        Thread thread = new Thread(() -> {
+            long startedAt = System.nanoTime();
+            try {
+                target.initialize();
+            } catch (RuntimeException e) {
+                getLogger().severe("ストレージの初期化に失敗しました: " + e.getMessage());
+                getLogger().severe("プレイヤーのトラッキングとストレージを使用するコマンドは無効になります。設定を確認してサーバーを再起動してください。");
+                storageReady.completeExceptionally(e);
+                return;
+            }
+            getLogger().info("起動処理: ストレージの初期化（" + elapsedMillis(startedAt) + "ms、別スレッド）");
+            storageReady.complete(null);
+            if (isEnabled()) {
+                getServer().getScheduler().runTask(this, () -> {
+                    if (eventListener != null) {
+                        eventListener.onStorageReady();
+                    }
+                });
+            }
+        }, "LoginBonus-StorageInit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 起動処理の1段階の所要時間を出力する
+     * @param phaseStart 段階の開始時刻（{@link System#nanoTime()}）
+     * @return 次の段階の開始時刻
+     */
+    private long logPhase(String phase, long phaseStart) {
+        getLogger().info("起動処理: " + phase + "（" + elapsedMillis(phaseStart) + "ms）");
+        return System.nanoTime();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * キャッシュを除いた実際のストレージを取得
+     * ストレージ固有の機能（MySQLの名前移行など）を使用する場合に使用します
+     * @return 実際のストレージ
+     */
+    public StorageInterface getBackendStorage() {
+        if (storage instanceof CachedStorage) {
+            return ((CachedStorage) storage).getDelegate();
+        }
+        return storage;
+    }
+
     public void savePlayerDataAsync() {
         storage.saveAsync();
     }
@@ -172,20 +349,26 @@ public class Main extends JavaPlugin {
      * @return 色コード変換済みのメッセージ
      */
     public String getMessage(String key, String defaultMessage, String... replacements) {
-        String message = messages.getString(key, defaultMessage);
         // 配列長のバリデーション
         if (replacements.length % 2 != 0) {
             getLogger().warning("getMessage: 置換配列の長さが奇数です (key=" + key + ", length=" + replacements.length + ")");
             // 最後の要素を無視して処理を続ける
         }
-        for (int i = 0; i < replacements.length - 1; i += 2) {
-            message = message.replace(replacements[i], replacements[i + 1]);
+        MessageTemplate template = messageTemplates.computeIfAbsent(key, k -> {
+            String message = messages.getString(k);
+            return message != null ? MessageTemplate.compile(message) : MISSING_MESSAGE;
+        });
+        if (template == MISSING_MESSAGE) {
+            // message.yml に無いキーはデフォルトメッセージを使用する
+            template = defaultMessageTemplates.computeIfAbsent(defaultMessage, MessageTemplate::compile);
         }
-        return org.bukkit.ChatColor.translateAlternateColorCodes('&', message);
+        return template.render(replacements);
     }
 
     private void reloadMessages() {
         messages = YamlConfiguration.loadConfiguration(messagesFile);
+        // 解析済みのテンプレートを破棄する
+        messageTemplates.clear();
     }
 
     private void saveDefaultMessages() {
@@ -238,88 +421,32 @@ public class Main extends JavaPlugin {
     public EventListener getEventListener() {
         return eventListener;
     }
+
+    /**
+     * サーバー間のデータ変更通知を取得
+     * @return データ変更通知（無効な場合も送信は安全に無視されます）
+     */
+    public SyncChannel getSyncChannel() {
+        return syncChannel;
+    }
     
     /**
      * 現在のリセット日付を取得（外部から呼び出し可能）
+     * 計算済みの値を返すため、毎秒の更新処理から呼び出しても負荷はかかりません
      * @return リセット日付文字列
      */
     public String getResetDate() {
-        return getCurrentResetDate();
+        return resetClock.getResetDate();
     }
 
-    private void startMidnightCheckTask() {
-        // 設定されたチェック間隔でリセット時刻が過ぎたかチェック
-        int checkIntervalSeconds = getConfig().getInt("reset-check-interval", 30);
-        
-        // 最小5秒、最大3600秒（1時間）に制限
-        if (checkIntervalSeconds < 5) {
-            getLogger().warning("reset-check-interval が小さすぎます（" + checkIntervalSeconds + "秒）。最小値の5秒を使用します。");
-            checkIntervalSeconds = 5;
-        } else if (checkIntervalSeconds > 3600) {
-            getLogger().warning("reset-check-interval が大きすぎます（" + checkIntervalSeconds + "秒）。最大値の3600秒（1時間）を使用します。");
-            checkIntervalSeconds = 3600;
-        }
-        
-        long checkIntervalTicks = checkIntervalSeconds * 20L; // 秒をティックに変換（1秒 = 20ティック）
-        
-        getLogger().info("リセット時刻のチェック間隔は " + checkIntervalSeconds + " 秒です。");
-        
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (shouldResetToday()) {
-                    // リセット時刻が過ぎた！
-                    String resetTime = getConfig().getString("reset-time", "00:00");
-                    lastCheckedDate = getCurrentResetDate();
-                    getLogger().info("リセット時刻（" + resetTime + "）になりました。全オンラインプレイヤーのトラッキングを再開します。");
-                    // オンラインの全プレイヤーの追跡を再開
-                    if (eventListener != null) {
-                        eventListener.restartTrackingForNewDay();
-                    }
-                }
-            }
-        }.runTaskTimer(this, 0L, checkIntervalTicks);
-    }
-    
-    /**
-     * 現在のリセット日付を取得（リセット時刻を考慮）
-     * @return リセット日付文字列（YYYY-MM-DD HH:mm形式）
-     */
-    private String getCurrentResetDate() {
-        String resetTimeStr = getConfig().getString("reset-time", "00:00");
-        String[] timeParts = resetTimeStr.split(":");
-        int resetHour = 0;
-        int resetMinute = 0;
-        
-        try {
-            resetHour = Integer.parseInt(timeParts[0]);
-            if (timeParts.length > 1) {
-                resetMinute = Integer.parseInt(timeParts[1]);
-            }
-        } catch (NumberFormatException e) {
-            getLogger().warning("無効なリセット時刻形式: " + resetTimeStr + " - デフォルト(00:00)を使用します");
-        }
-        
-        java.time.LocalDateTime now = java.time.LocalDateTime.now();
-        java.time.LocalDateTime resetTime = now.withHour(resetHour).withMinute(resetMinute).withSecond(0);
-        
-        // 現在時刻がリセット時刻より前の場合、前日のリセット日付を返す
-        if (now.isBefore(resetTime)) {
-            resetTime = resetTime.minusDays(1);
-        }
-        
-        return resetTime.format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-    }
-    
     /**
-     * 今日リセットすべきかチェック
-     * @return リセットすべき場合true
+     * リセット時刻で区切られた現在の期間を取得
+     * @return リセットクロック
      */
-    private boolean shouldResetToday() {
-        String currentResetDate = getCurrentResetDate();
-        return !currentResetDate.equals(lastCheckedDate);
+    public ResetClock getResetClock() {
+        return resetClock;
     }
-    
+
     /**
      * Plan Data Extensionを登録
      */
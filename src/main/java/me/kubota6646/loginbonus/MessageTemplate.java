@@ -0,0 +1,103 @@
+package me.kubota6646.loginbonus;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 解析済みのメッセージテンプレート
+ * message.yml の文字列を固定文字列と %name% 形式のプレースホルダーに分割し、装飾コードは解析時に変換しておきます。
+ * 置換値はそのまま埋め込まれ、装飾コードとしては解釈されません。
+ */
+public final class MessageTemplate {
+
+    private final String[] segments; // 固定文字列とプレースホルダーを交互に保持（偶数番目が固定文字列）
+    private final int literalLength;
+
+    private MessageTemplate(String[] segments, int literalLength) {
+        this.segments = segments;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * メッセージ文字列を解析する
+     * @param message 装飾コード（&）を含むメッセージ
+     * @return テンプレート
+     */
+    public static MessageTemplate compile(String message) {
+        String translated = ChatColor.translateAlternateColorCodes('&', message);
+        List<String> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int literalLength = 0;
+        int index = 0;
+        while (index < translated.length()) {
+            int start = translated.indexOf('%', index);
+            int end = start < 0 ? -1 : translated.indexOf('%', start + 1);
+            if (end < 0) {
+                literal.append(translated, index, translated.length());
+                break;
+            }
+            String token = translated.substring(start, end + 1);
+            if (!isPlaceholder(token)) {
+                // "100%" のような単独の % は固定文字列として扱い、次の % から再度探す
+                literal.append(translated, index, end);
+                index = end;
+                continue;
+            }
+            literal.append(translated, index, start);
+            literalLength += literal.length();
+            segments.add(literal.toString());
+            segments.add(token);
+            literal.setLength(0);
+            index = end + 1;
+        }
+        literalLength += literal.length();
+        segments.add(literal.toString());
+        return new MessageTemplate(segments.toArray(new String[0]), literalLength);
+    }
+
+    private static boolean isPlaceholder(String token) {
+        if (token.length() <= 2) {
+            return false;
+        }
+        for (int i = 1; i < token.length() - 1; i++) {
+            char c = token.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * プレースホルダーを置換してメッセージを作成する
+     * @param replacements プレースホルダーと置換値の組（例: "%player%", "Steve"）
+     * @return メッセージ
+     */
+    public String render(String... replacements) {
+        if (segments.length == 1) {
+            return segments[0];
+        }
+        // 置換後の長さを先に求め、1回の確保で組み立てる
+        int length = literalLength;
+        for (int i = 1; i < segments.length; i += 2) {
+            length += resolve(segments[i], replacements).length();
+        }
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < segments.length; i++) {
+            builder.append((i & 1) == 0 ? segments[i] : resolve(segments[i], replacements));
+        }
+        return builder.toString();
+    }
+
+    private static String resolve(String placeholder, String[] replacements) {
+        for (int i = 0; i < replacements.length - 1; i += 2) {
+            if (placeholder.equals(replacements[i])) {
+                return replacements[i + 1] != null ? replacements[i + 1] : "null";
+            }
+        }
+        // 置換値が指定されていないプレースホルダーはそのまま残す
+        return placeholder;
+    }
+}
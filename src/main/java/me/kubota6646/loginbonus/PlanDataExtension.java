@@ -10,8 +10,8 @@ import com.djrapitops.plan.extension.icon.Family;
 import com.djrapitops.plan.extension.icon.Icon;
 import com.djrapitops.plan.extension.table.Table;
 import me.kubota6646.loginbonus.storage.StorageInterface;
+import me.kubota6646.loginbonus.storage.StreakEntry;
 
-import java.util.List;
 import java.util.UUID;
 
 @PluginInfo(name = "LoginBonus", iconName = "gift", iconFamily = Family.SOLID, color = Color.LIGHT_GREEN)
@@ -42,6 +42,10 @@ public class PlanDataExtension implements DataExtension {
         showInPlayerTable = true
     )
     public long consecutiveLoginDays(UUID playerUUID) {
+        if (!plugin.isStorageReady()) {
+            // ストレージの初期化中は値を返さない（次の更新で取得する）
+            return 0;
+        }
         StorageInterface storage = plugin.getStorage();
         return storage.getStreak(playerUUID);
     }
@@ -54,41 +58,37 @@ public class PlanDataExtension implements DataExtension {
             .columnOne("プレイヤー", Icon.called("user").of(Family.SOLID).build())
             .columnTwo("連続ログイン日数", Icon.called("calendar-check").of(Family.SOLID).build());
         
-        // 全プレイヤーのUUIDを取得
-        List<UUID> allPlayers = storage.getAllPlayerUUIDs();
+        if (!plugin.isStorageReady()) {
+            // ストレージの初期化中は空の表を返す（次の更新で集計する）
+            return table.build();
+        }
         
-        // ストリーク日数が多い順にソートして上位を表示
+        // ストリーク日数が多い順に上位50名をストレージ側で集計して表示
         // Note: getOfflinePlayer()はI/O操作を伴う可能性がありますが、
-        // このテーブルはPlan Web UI表示時のみ生成されるため、
-        // 上位50名に制限されており、パフォーマンスへの影響は限定的です。
-        allPlayers.stream()
-            .filter(uuid -> storage.getStreak(uuid) > 0) // ストリークが0より大きいプレイヤーのみ
-            .sorted((uuid1, uuid2) -> {
-                int streak1 = storage.getStreak(uuid1);
-                int streak2 = storage.getStreak(uuid2);
-                return Integer.compare(streak2, streak1); // 降順
-            })
-            .limit(50) // 上位50名まで表示
-            .forEach(uuid -> {
-                String playerName;
-                try {
-                    org.bukkit.OfflinePlayer offlinePlayer = plugin.getServer().getOfflinePlayer(uuid);
-                    // プレイヤーが過去にサーバーに参加したことがある場合のみ名前を取得
-                    if (offlinePlayer.hasPlayedBefore() && offlinePlayer.getName() != null) {
-                        playerName = offlinePlayer.getName();
-                    } else {
-                        // UUIDの最初の8文字を表示（読みやすくするため）
-                        playerName = uuid.toString().substring(0, 8) + "...";
-                    }
-                } catch (Exception e) {
-                    // エラーが発生した場合はUUIDの短縮版を使用
-                    playerName = uuid.toString().substring(0, 8) + "...";
-                    plugin.getLogger().warning("プレイヤー名の取得に失敗しました: " + uuid + " - " + e.getMessage());
-                }
-                int streak = storage.getStreak(uuid);
-                table.addRow(playerName, streak);
-            });
+        // ストレージにプレイヤー名が保存されていない場合のみ呼び出され、
+        // 上位50名に制限されているため、パフォーマンスへの影響は限定的です。
+        for (StreakEntry entry : storage.topStreaks(50)) {
+            table.addRow(resolvePlayerName(entry), entry.getStreak());
+        }
         
         return table.build();
     }
+    
+    private String resolvePlayerName(StreakEntry entry) {
+        if (entry.getPlayerName() != null) {
+            return entry.getPlayerName();
+        }
+        UUID uuid = entry.getPlayerId();
+        try {
+            org.bukkit.OfflinePlayer offlinePlayer = plugin.getServer().getOfflinePlayer(uuid);
+            // プレイヤーが過去にサーバーに参加したことがある場合のみ名前を取得
+            if (offlinePlayer.hasPlayedBefore() && offlinePlayer.getName() != null) {
+                return offlinePlayer.getName();
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("プレイヤー名の取得に失敗しました: " + uuid + " - " + e.getMessage());
+        }
+        // UUIDの最初の8文字を表示（読みやすくするため）
+        return uuid.toString().substring(0, 8) + "...";
+    }
 }
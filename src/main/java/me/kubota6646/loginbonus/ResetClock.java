@@ -0,0 +1,149 @@
+package me.kubota6646.loginbonus;
+
+import me.kubota6646.loginbonus.storage.CompactColumns;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * リセット時刻（reset-time）で区切られた現在の期間を管理する
+ * 設定は起動時と /rewardreload 時にのみ解析し、次のリセット時刻にだけ起床して期間を切り替えます。
+ * 現在の期間は事前に計算済みのため、どのスレッドからでも負荷なく取得できます。
+ */
+public class ResetClock {
+
+    private final Main plugin;
+    private final Runnable onReset;
+    private final ScheduledExecutorService timer;
+    private volatile LocalTime resetTime;
+    private volatile Period current;
+    private ScheduledFuture<?> wakeUp;
+
+    /**
+     * @param plugin プラグイン
+     * @param onReset リセット時刻になったときにメインスレッドで実行する処理
+     */
+    public ResetClock(Main plugin, Runnable onReset) {
+        this.plugin = plugin;
+        this.onReset = onReset;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LoginBonus-ResetClock");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 設定からリセット時刻を読み込み、次のリセット時刻に起床するよう予約し直す（起動時と /rewardreload 時）
+     * リセット時刻の変更により現在の期間が変わった場合は、リセット時刻になったときと同じ処理を行います。
+     */
+    public synchronized void rebuild() {
+        resetTime = parseResetTime(plugin.getConfig().getString("reset-time", "00:00"));
+        advance();
+    }
+
+    /**
+     * 起床の予約を取り消し、タイマーを停止する
+     */
+    public synchronized void shutdown() {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+            wakeUp = null;
+        }
+        timer.shutdownNow();
+    }
+
+    /**
+     * 現在のリセット日付を取得（{@link #rebuild()} の呼び出し後に使用可能）
+     * @return リセット日付文字列（YYYY-MM-DD HH:mm形式）
+     */
+    public String getResetDate() {
+        return current.resetDate;
+    }
+
+    /**
+     * 現在の期間の日付を取得
+     * @return リセット時刻で区切った日付のエポック日数（1970-01-01 からの日数）
+     */
+    public long getPeriodDay() {
+        return current.epochDay;
+    }
+
+    /**
+     * 次のリセット時刻を取得
+     */
+    public Instant getNextReset() {
+        return current.nextReset;
+    }
+
+    /**
+     * 現在時刻から期間を計算し直し、変わっていれば通知したうえで次の起床を予約する
+     */
+    private synchronized void advance() {
+        if (timer.isShutdown()) {
+            return;
+        }
+        Period previous = current;
+        current = Period.at(resetTime, Instant.now());
+        // 起動時や、予定より早く起床した場合は期間が変わらないため通知しない
+        if (previous != null && !previous.resetDate.equals(current.resetDate)) {
+            notifyReset();
+        }
+
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        long delayMillis = Math.max(0L, current.nextReset.toEpochMilli() - System.currentTimeMillis());
+        wakeUp = timer.schedule(this::advance, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void notifyReset() {
+        plugin.getLogger().info("リセット時刻（" + resetTime + "）になりました。新しい日のトラッキングを開始します。");
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, onReset);
+        }
+    }
+
+    private LocalTime parseResetTime(String resetTimeStr) {
+        LocalTime parsed = CompactColumns.parseResetTime(resetTimeStr);
+        if (parsed == null) {
+            plugin.getLogger().warning("無効なリセット時刻形式: " + resetTimeStr + " - デフォルト(00:00)を使用します");
+            return LocalTime.MIDNIGHT;
+        }
+        return parsed;
+    }
+
+    /**
+     * リセット時刻で区切られた1日分の期間
+     */
+    private static final class Period {
+        private final long epochDay;
+        private final String resetDate;
+        private final Instant nextReset;
+
+        private Period(long epochDay, String resetDate, Instant nextReset) {
+            this.epochDay = epochDay;
+            this.resetDate = resetDate;
+            this.nextReset = nextReset;
+        }
+
+        /**
+         * 指定した時刻を含む期間を計算（リセット時刻より前は前日の期間）
+         */
+        static Period at(LocalTime resetTime, Instant now) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDateTime local = LocalDateTime.ofInstant(now, zone);
+            LocalDate day = local.toLocalTime().isBefore(resetTime) ? local.toLocalDate().minusDays(1) : local.toLocalDate();
+            Instant nextReset = day.plusDays(1).atTime(resetTime).atZone(zone).toInstant();
+            // データベースから読み込んだ日付と同じ形式にする
+            return new Period(day.toEpochDay(), CompactColumns.toResetDate((int) day.toEpochDay(), resetTime), nextReset);
+        }
+    }
+}
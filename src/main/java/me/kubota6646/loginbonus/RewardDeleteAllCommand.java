@@ -21,6 +21,10 @@ public class RewardDeleteAllCommand implements CommandExecutor {
             return true;
         }
 
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
+
         if (args.length != 1 || !args[0].equalsIgnoreCase("confirm")) {
             sender.sendMessage(plugin.getMessage("delete-all-warning", "&e警告: このコマンドは全てのプレイヤーデータを削除します。"));
             sender.sendMessage(plugin.getMessage("delete-all-confirmation", "&e実行するには /%command% confirm と入力してください。",
@@ -33,6 +37,7 @@ public class RewardDeleteAllCommand implements CommandExecutor {
         
         if (success) {
             plugin.savePlayerDataAsync();
+            plugin.getSyncChannel().publish(SyncMessage.allDeleted());
             sender.sendMessage(plugin.getMessage("delete-all-success", "&a全てのプレイヤーデータを削除しました。"));
             
             // オンラインの全プレイヤーのトラッキングをキャンセルして再開
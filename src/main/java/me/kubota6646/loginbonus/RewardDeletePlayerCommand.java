@@ -22,6 +22,10 @@ public class RewardDeletePlayerCommand implements CommandExecutor {
             return true;
         }
 
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
+
         if (args.length != 1) {
             sender.sendMessage(plugin.getMessage("delete-player-usage", "&c使用法: /%command% <player>",
                 "%command%", label));
@@ -45,6 +49,8 @@ public class RewardDeletePlayerCommand implements CommandExecutor {
         
         if (success) {
             plugin.savePlayerDataAsync();
+            // 他のサーバーでオンラインの場合に備えて通知
+            plugin.getSyncChannel().publish(SyncMessage.reset(target.getUniqueId(), 0));
             sender.sendMessage(plugin.getMessage("delete-player-success", "&aプレイヤー '%player%' のデータを削除しました。",
                 "%player%", playerName));
             
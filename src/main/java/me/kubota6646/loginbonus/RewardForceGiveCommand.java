@@ -7,6 +7,8 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
+
 public class RewardForceGiveCommand implements CommandExecutor {
     
     private final Main plugin;
@@ -22,6 +24,10 @@ public class RewardForceGiveCommand implements CommandExecutor {
             return true;
         }
 
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
+
         if (args.length != 1) {
             sender.sendMessage(plugin.getMessage("force-give-usage", "&c使用法: /%command% <player|everyone>",
                 "%command%", label));
@@ -34,11 +40,10 @@ public class RewardForceGiveCommand implements CommandExecutor {
 
         // "everyone" キーワードで全プレイヤーを対象
         if (playerName.equalsIgnoreCase("everyone")) {
-            int playerCount = 0;
-            for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-                plugin.getEventListener().giveReward(onlinePlayer, today, true, false);
-                playerCount++;
-            }
+            // 全員分の読み込みと書き込みをまとめて行う
+            Collection<? extends Player> onlinePlayers = Bukkit.getOnlinePlayers();
+            plugin.getEventListener().giveRewards(onlinePlayers, today, true, false);
+            int playerCount = onlinePlayers.size();
             sender.sendMessage(plugin.getMessage("force-give-everyone-success", "&a全プレイヤー (%count% 人) に今日の報酬を強制付与しました。",
                 "%count%", String.valueOf(playerCount)));
             return true;
@@ -1,17 +1,14 @@
 package me.kubota6646.loginbonus;
 
-import me.kubota6646.loginbonus.storage.StorageFactory;
-import me.kubota6646.loginbonus.storage.StorageInterface;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.UUID;
-
 public class RewardMigrateCommand implements CommandExecutor {
     
     private final Main plugin;
+    private StorageMigration running; // 実行中の移行（thisで同期）
     
     public RewardMigrateCommand(Main plugin) {
         this.plugin = plugin;
@@ -24,16 +21,24 @@ public class RewardMigrateCommand implements CommandExecutor {
             return true;
         }
 
-        if (args.length != 2) {
+        if (args.length == 1 && args[0].equalsIgnoreCase("cancel")) {
+            cancel(sender);
+            return true;
+        }
+
+        if (args.length != 2 && !(args.length == 3 && args[2].equalsIgnoreCase("restart"))) {
             sender.sendMessage(plugin.getMessage("migrate-usage", "&c使用法: /%command% <yaml|sqlite|mysql> <yaml|sqlite|mysql>",
                 "%command%", label));
             sender.sendMessage(plugin.getMessage("migrate-usage-example", "&e例: /%command% yaml mysql - YAMLからMySQLへ移行",
                 "%command%", label));
+            sender.sendMessage(plugin.getMessage("migrate-usage-options", "&e/%command% cancel で中止、末尾に restart を付けるとチェックポイントを破棄して最初から移行します",
+                "%command%", label));
             return true;
         }
 
         String fromType = args[0].toLowerCase();
         String toType = args[1].toLowerCase();
+        boolean restart = args.length == 3;
 
         if (!fromType.equals("yaml") && !fromType.equals("sqlite") && !fromType.equals("mysql")) {
             sender.sendMessage(plugin.getMessage("migrate-invalid-from", "&c移行元は 'yaml', 'sqlite' または 'mysql' のみ指定可能です。"));
@@ -50,75 +55,53 @@ public class RewardMigrateCommand implements CommandExecutor {
             return true;
         }
 
-        sender.sendMessage(plugin.getMessage("migrate-starting", "&eデータ移行を開始します: %from% -> %to%",
-            "%from%", fromType, "%to%", toType));
-
-        // 移行元と移行先のストレージを作成
-        StorageInterface fromStorage = StorageFactory.createStorage(plugin, fromType);
-        StorageInterface toStorage = StorageFactory.createStorage(plugin, toType);
-
-        try {
-            fromStorage.initialize();
-            toStorage.initialize();
-
-            int migratedCount = 0;
-
-            // 全プレイヤーUUIDを取得
-            java.util.List<UUID> playerUUIDs = fromStorage.getAllPlayerUUIDs();
-            
-            if (playerUUIDs.isEmpty()) {
-                sender.sendMessage(plugin.getMessage("migrate-no-data", "&e移行するプレイヤーデータが見つかりませんでした。"));
+        synchronized (this) {
+            if (running != null) {
+                sender.sendMessage(plugin.getMessage("migrate-already-running", "&c既にデータ移行を実行中です: %from% -> %to%",
+                    "%from%", running.getFromType(), "%to%", running.getToType()));
                 return true;
             }
-            
-            sender.sendMessage(plugin.getMessage("migrate-in-progress", "&e%count% 件のプレイヤーデータを移行中...",
-                "%count%", String.valueOf(playerUUIDs.size())));
-            
-            // 各プレイヤーのデータを移行
-            for (UUID playerId : playerUUIDs) {
-                try {
-                    // データを読み込んで移行
-                    double cumulative = fromStorage.getCumulative(playerId);
-                    String lastReward = fromStorage.getLastReward(playerId);
-                    int streak = fromStorage.getStreak(playerId);
-                    String lastStreakDate = fromStorage.getLastStreakDate(playerId);
-                    
-                    // 移行先に書き込み
-                    toStorage.setCumulative(playerId, cumulative);
-                    if (lastReward != null) {
-                        toStorage.setLastReward(playerId, lastReward);
-                    }
-                    toStorage.setStreak(playerId, streak);
-                    if (lastStreakDate != null) {
-                        toStorage.setLastStreakDate(playerId, lastStreakDate);
-                    }
-                    
-                    migratedCount++;
-                } catch (Exception e) {
-                    plugin.getLogger().warning("プレイヤー " + playerId + " のデータ移行に失敗しました: " + e.getMessage());
-                }
-            }
+            sender.sendMessage(plugin.getMessage("migrate-starting", "&eデータ移行を開始します: %from% -> %to%",
+                "%from%", fromType, "%to%", toType));
+            // 移行は別スレッドで行い、進捗は一定間隔で通知する
+            StorageMigration migration = new StorageMigration(plugin, sender, fromType, toType);
+            running = migration;
+            migration.start(restart, () -> finished(migration));
+        }
 
-            toStorage.saveAsync().join();
-            
-            sender.sendMessage(plugin.getMessage("migrate-success", "&aデータ移行が完了しました。%count% 件のプレイヤーデータを移行しました。",
-                "%count%", String.valueOf(migratedCount)));
-            sender.sendMessage(plugin.getMessage("migrate-reminder", "&econfig.yml の storage-type を '%type%' に変更して /rewardreload を実行してください。",
-                "%type%", toType));
+        return true;
+    }
 
-        } catch (Exception e) {
-            sender.sendMessage(plugin.getMessage("migrate-error", "&cデータ移行中にエラーが発生しました: %error%",
-                "%error%", e.getMessage()));
-            plugin.getLogger().severe("データ移行中にエラーが発生しました: " + e.getMessage());
-            plugin.getLogger().severe("スタックトレース: " + e.getClass().getName());
-            for (StackTraceElement element : e.getStackTrace()) {
-                plugin.getLogger().severe("  at " + element.toString());
-            }
-        } finally {
-            fromStorage.close();
-            toStorage.close();
+    private void cancel(CommandSender sender) {
+        StorageMigration migration;
+        synchronized (this) {
+            migration = running;
         }
+        if (migration == null) {
+            sender.sendMessage(plugin.getMessage("migrate-not-running", "&e実行中のデータ移行はありません。"));
+            return;
+        }
+        // 書き込み中のチャンクの完了後に停止し、結果は移行スレッドから通知される
+        migration.cancel(0L);
+        sender.sendMessage(plugin.getMessage("migrate-cancelling", "&eデータ移行を中止しています..."));
+    }
 
-        return true;
+    /**
+     * 実行中の移行を中止し、停止を待つ（プラグインの無効化時）
+     */
+    public void cancelRunning() {
+        StorageMigration migration;
+        synchronized (this) {
+            migration = running;
+        }
+        if (migration != null) {
+            migration.cancel(10000L);
+        }
+    }
+
+    private synchronized void finished(StorageMigration migration) {
+        if (running == migration) {
+            running = null;
+        }
     }
 }
@@ -1,13 +1,19 @@
 package me.kubota6646.loginbonus;
 
 import me.kubota6646.loginbonus.storage.MySqlStorage;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * プレイヤー名の移行コマンド
  * データベース内の空のplayer_name列をBukkitのオフラインプレイヤーキャッシュから取得した名前で埋めます
+ * 名前が未設定の行のみを一定件数ずつ処理し、チャンクごとに進捗を通知します
  */
 public class RewardMigrateNamesCommand implements CommandExecutor {
     
@@ -25,16 +31,20 @@ public class RewardMigrateNamesCommand implements CommandExecutor {
                 "&cこのコマンドを実行する権限がありません。"));
             return true;
         }
+
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
         
         // MySQLストレージの場合のみ実行可能
-        if (!(plugin.getStorage() instanceof MySqlStorage)) {
+        if (!(plugin.getBackendStorage() instanceof MySqlStorage)) {
             sender.sendMessage(plugin.getMessage("migrate-names-mysql-only",
                 "&cこのコマンドはMySQLストレージを使用している場合のみ実行できます。",
                 ""));
             return true;
         }
         
-        MySqlStorage storage = (MySqlStorage) plugin.getStorage();
+        MySqlStorage storage = (MySqlStorage) plugin.getBackendStorage();
         
         sender.sendMessage(plugin.getMessage("migrate-names-start",
             "&aプレイヤー名の移行を開始します...",
@@ -43,7 +53,22 @@ public class RewardMigrateNamesCommand implements CommandExecutor {
         // 非同期で実行（データベース操作のため）
         plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
             try {
-                int updatedCount = storage.migratePlayerNames();
+                // 名前はオフラインプレイヤーのキャッシュからまとめて取得し、1人ずつ問い合わせない
+                Map<UUID, String> names = new HashMap<>();
+                for (OfflinePlayer offlinePlayer : plugin.getServer().getOfflinePlayers()) {
+                    if (offlinePlayer.getName() != null) {
+                        names.put(offlinePlayer.getUniqueId(), offlinePlayer.getName());
+                    }
+                }
+                plugin.getLogger().info("プレイヤー名の移行を開始します。名前が分かるプレイヤー: " + names.size() + " 人");
+
+                int updatedCount = storage.migratePlayerNames(names, (scanned, updated) ->
+                    // 進捗はチャンクごとにメインスレッドで送信
+                    plugin.getServer().getScheduler().runTask(plugin, () -> {
+                        sender.sendMessage(plugin.getMessage("migrate-names-progress",
+                            "&e%scanned% 人を確認し、%count% 人の名前を更新しました...",
+                            "%scanned%", String.valueOf(scanned), "%count%", String.valueOf(updated)));
+                    }));
                 
                 // 結果をメインスレッドで送信
                 plugin.getServer().getScheduler().runTask(plugin, () -> {
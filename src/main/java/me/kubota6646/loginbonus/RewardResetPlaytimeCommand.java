@@ -1,5 +1,6 @@
 package me.kubota6646.loginbonus;
 
+import me.kubota6646.loginbonus.storage.PlayerRecord;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -7,6 +8,11 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 public class RewardResetPlaytimeCommand implements CommandExecutor {
     
     private final Main plugin;
@@ -22,6 +28,10 @@ public class RewardResetPlaytimeCommand implements CommandExecutor {
             return true;
         }
 
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
+
         if (args.length != 1) {
             sender.sendMessage(plugin.getMessage("reset-playtime-usage", "&c使用法: /%command% <player|everyone>",
                 "%command%", label));
@@ -32,14 +42,28 @@ public class RewardResetPlaytimeCommand implements CommandExecutor {
         
         // "everyone" キーワードで全プレイヤーを対象
         if (playerName.equalsIgnoreCase("everyone")) {
-            int playerCount = 0;
+            List<UUID> playerIds = new ArrayList<>();
             for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-                plugin.getStorage().setCumulative(onlinePlayer.getUniqueId(), 0.0);
-                plugin.getStorage().setLastReward(onlinePlayer.getUniqueId(), null);
-                plugin.getEventListener().startTrackingForPlayer(onlinePlayer.getUniqueId());
-                playerCount++;
+                playerIds.add(onlinePlayer.getUniqueId());
+            }
+            // 全員分の読み込みと書き込みをまとめて行う
+            Map<UUID, PlayerRecord> records = plugin.getStorage().loadRecords(playerIds);
+            List<PlayerRecord> updated = new ArrayList<>();
+            for (UUID playerId : playerIds) {
+                PlayerRecord record = records.getOrDefault(playerId, PlayerRecord.empty(playerId));
+                updated.add(record.withCumulative(0.0).withLastReward(null));
+            }
+            plugin.getStorage().saveRecords(updated);
+            for (UUID playerId : playerIds) {
+                plugin.getEventListener().startTrackingForPlayer(playerId);
             }
             plugin.getStorage().saveAsync().join();
+            List<SyncMessage> notifications = new ArrayList<>();
+            for (UUID playerId : playerIds) {
+                notifications.add(SyncMessage.reset(playerId, SyncMessage.STREAK_UNCHANGED));
+            }
+            plugin.getSyncChannel().publishAll(notifications);
+            int playerCount = playerIds.size();
             sender.sendMessage(plugin.getMessage("reset-playtime-everyone-success", "&a全プレイヤー (%count% 人) の累積プレイ時間をリセットしました。",
                 "%count%", String.valueOf(playerCount)));
             return true;
@@ -60,6 +84,7 @@ public class RewardResetPlaytimeCommand implements CommandExecutor {
 
         // ボスバーをリセットして新しいカウントを開始
         plugin.getEventListener().startTrackingForPlayer(target.getUniqueId());
+        plugin.getSyncChannel().publish(SyncMessage.reset(target.getUniqueId(), SyncMessage.STREAK_UNCHANGED));
 
         sender.sendMessage(plugin.getMessage("reset-playtime-success", "&aプレイヤー '%player%' の累積プレイ時間をリセットしました。",
             "%player%", playerName));
@@ -1,5 +1,6 @@
 package me.kubota6646.loginbonus;
 
+import me.kubota6646.loginbonus.storage.PlayerRecord;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -7,6 +8,10 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class RewardSetStreakCommand implements CommandExecutor {
     
@@ -23,6 +28,10 @@ public class RewardSetStreakCommand implements CommandExecutor {
             return true;
         }
 
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
+
         if (args.length != 2) {
             sender.sendMessage(plugin.getMessage("set-streak-usage", "&c使用法: /%command% <player|everyone> <streak>",
                 "%command%", label));
@@ -46,13 +55,26 @@ public class RewardSetStreakCommand implements CommandExecutor {
 
         // "everyone" キーワードで全プレイヤーを対象
         if (playerName.equalsIgnoreCase("everyone")) {
-            int playerCount = 0;
+            List<UUID> playerIds = new ArrayList<>();
             for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-                plugin.getStorage().setStreak(onlinePlayer.getUniqueId(), streak);
-                plugin.getStorage().setLastStreakDate(onlinePlayer.getUniqueId(), LocalDate.now().toString());
-                playerCount++;
+                playerIds.add(onlinePlayer.getUniqueId());
             }
+            // 全員分の読み込みと書き込みをまとめて行う
+            String lastStreakDate = LocalDate.now().toString();
+            Map<UUID, PlayerRecord> records = plugin.getStorage().loadRecords(playerIds);
+            List<PlayerRecord> updated = new ArrayList<>();
+            for (UUID playerId : playerIds) {
+                PlayerRecord record = records.getOrDefault(playerId, PlayerRecord.empty(playerId));
+                updated.add(record.withStreak(streak).withLastStreakDate(lastStreakDate));
+            }
+            plugin.getStorage().saveRecords(updated);
             plugin.savePlayerDataAsync();
+            List<SyncMessage> notifications = new ArrayList<>();
+            for (UUID playerId : playerIds) {
+                notifications.add(SyncMessage.updated(playerId, streak));
+            }
+            plugin.getSyncChannel().publishAll(notifications);
+            int playerCount = playerIds.size();
             sender.sendMessage(plugin.getMessage("set-streak-everyone-success", "&a全プレイヤー (%count% 人) のストリークを %streak% 日に設定しました。",
                 "%count%", String.valueOf(playerCount), "%streak%", String.valueOf(streak)));
             return true;
@@ -69,6 +91,7 @@ public class RewardSetStreakCommand implements CommandExecutor {
         plugin.getStorage().setStreak(target.getUniqueId(), streak);
         plugin.getStorage().setLastStreakDate(target.getUniqueId(), LocalDate.now().toString());
         plugin.savePlayerDataAsync();
+        plugin.getSyncChannel().publish(SyncMessage.updated(target.getUniqueId(), streak));
 
         sender.sendMessage(plugin.getMessage("set-streak-success", "&aプレイヤー '%player%' のストリークを %streak% 日に設定しました。",
             "%player%", playerName, "%streak%", String.valueOf(streak)));
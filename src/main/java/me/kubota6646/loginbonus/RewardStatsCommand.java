@@ -0,0 +1,53 @@
+package me.kubota6646.loginbonus;
+
+import me.kubota6646.loginbonus.storage.StatementRegistry;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+
+/**
+ * ストレージ統計の表示コマンド
+ * SQL文ごとの実行回数と準備回数を実行回数の多い順に表示します
+ */
+public class RewardStatsCommand implements CommandExecutor {
+    
+    private final Main plugin;
+    
+    public RewardStatsCommand(Main plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        // 権限チェック
+        if (!sender.hasPermission("loginbonus.admin") && !sender.isOp()) {
+            sender.sendMessage(plugin.getMessage("no-permission-admin", 
+                "&cこのコマンドを実行する権限がありません。"));
+            return true;
+        }
+
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
+        
+        List<StatementRegistry.Stats> stats = plugin.getBackendStorage().getStatementStats();
+        if (stats.isEmpty()) {
+            sender.sendMessage(plugin.getMessage("stats-not-available",
+                "&eこのストレージではSQL文の統計を利用できません。"));
+            return true;
+        }
+        
+        sender.sendMessage(plugin.getMessage("stats-header",
+            "&a--- SQL文の実行統計（実行回数 / 準備回数） ---"));
+        for (StatementRegistry.Stats stat : stats) {
+            sender.sendMessage(plugin.getMessage("stats-line",
+                "&7%name%: &f%executions% &7/ &f%prepares%",
+                "%name%", stat.getName(),
+                "%executions%", String.valueOf(stat.getExecutions()),
+                "%prepares%", String.valueOf(stat.getPrepares())));
+        }
+        return true;
+    }
+}
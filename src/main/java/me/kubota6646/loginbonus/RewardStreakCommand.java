@@ -21,6 +21,10 @@ public class RewardStreakCommand implements CommandExecutor {
             sender.sendMessage(plugin.getMessage("player-only", "&cこのコマンドはプレイヤーのみ実行可能です。"));
             return true;
         }
+
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
         
         Player player = (Player) sender;
         UUID playerId = player.getUniqueId();
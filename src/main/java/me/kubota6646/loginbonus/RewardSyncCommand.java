@@ -1,5 +1,6 @@
 package me.kubota6646.loginbonus;
 
+import me.kubota6646.loginbonus.storage.PlayerRecord;
 import me.kubota6646.loginbonus.storage.StorageInterface;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
@@ -23,6 +24,10 @@ public class RewardSyncCommand implements CommandExecutor {
             sender.sendMessage(plugin.getMessage("no-permission-admin", "&cこのコマンドを実行する権限がありません。"));
             return true;
         }
+
+        if (!plugin.checkStorageReady(sender)) {
+            return true;
+        }
         
         StorageInterface storage = plugin.getStorage();
         String storageType = plugin.getConfig().getString("storage-type", "yaml").toLowerCase();
@@ -82,18 +87,20 @@ public class RewardSyncCommand implements CommandExecutor {
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
             try {
                 // 現在のデータを取得
-                double oldCumulative = storage.getCumulative(target.getUniqueId());
-                int oldStreak = storage.getStreak(target.getUniqueId());
-                String oldLastReward = storage.getLastReward(target.getUniqueId());
+                PlayerRecord oldRecord = storage.loadRecord(target.getUniqueId());
                 
                 // データベースから最新データを取得（再読み込み）
                 boolean synced = storage.syncPlayerData(target.getUniqueId());
                 
                 if (synced) {
                     // 同期後のデータを取得
-                    double newCumulative = storage.getCumulative(target.getUniqueId());
-                    int newStreak = storage.getStreak(target.getUniqueId());
-                    String newLastReward = storage.getLastReward(target.getUniqueId());
+                    PlayerRecord newRecord = storage.loadRecord(target.getUniqueId());
+                    double oldCumulative = oldRecord != null ? oldRecord.getCumulative() : 0.0;
+                    int oldStreak = oldRecord != null ? oldRecord.getStreak() : 1;
+                    String oldLastReward = oldRecord != null ? oldRecord.getLastReward() : null;
+                    double newCumulative = newRecord != null ? newRecord.getCumulative() : 0.0;
+                    int newStreak = newRecord != null ? newRecord.getStreak() : 1;
+                    String newLastReward = newRecord != null ? newRecord.getLastReward() : null;
                     
                     // 変更があったかチェック
                     boolean hasChanges = (oldCumulative != newCumulative) || 
@@ -0,0 +1,214 @@
+package me.kubota6646.loginbonus;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * config.yml の報酬設定を読み込み時に解決した不変の報酬テーブル
+ * アイテム名の解決と設定の検証は起動時と /rewardreload 時に1回だけ行い、報酬付与時は参照のみを行います。
+ */
+public final class RewardTable {
+
+    private final List<RewardItem> baseItems;
+    private final Map<Integer, SpecialReward> streakRewards;
+    private final int[] multiples; // 昇順
+    private final Map<Integer, SpecialReward> multipleRewards;
+
+    private RewardTable(List<RewardItem> baseItems, Map<Integer, SpecialReward> streakRewards,
+                        int[] multiples, Map<Integer, SpecialReward> multipleRewards) {
+        this.baseItems = baseItems;
+        this.streakRewards = streakRewards;
+        this.multiples = multiples;
+        this.multipleRewards = multipleRewards;
+    }
+
+    /**
+     * 設定から報酬テーブルを作成する
+     * 無効な設定は警告を出力して読み飛ばします
+     * @param config 設定
+     * @param logger 警告の出力先
+     * @return 報酬テーブル
+     */
+    public static RewardTable load(FileConfiguration config, Logger logger) {
+        List<RewardItem> baseItems = loadItems(config.getMapList("reward-items"), "reward-items", logger);
+
+        // 特殊ストリーク報酬（個別日数）
+        Map<Integer, SpecialReward> streakRewards = new HashMap<>();
+        if (config.getBoolean("special_streak_rewards.enabled", false)) {
+            ConfigurationSection rewardsSection = config.getConfigurationSection("special_streak_rewards.rewards");
+            if (rewardsSection != null) {
+                for (String key : rewardsSection.getKeys(false)) {
+                    Integer days = parsePositiveInt(key, "special_streak_rewards.rewards", logger);
+                    if (days == null || !rewardsSection.isConfigurationSection(key)) {
+                        continue;
+                    }
+                    streakRewards.put(days, loadSpecialReward(rewardsSection.getConfigurationSection(key),
+                            "special_streak_rewards.rewards." + key, logger));
+                }
+            }
+        }
+
+        // 特殊倍数ストリーク報酬（倍数日数）
+        Map<Integer, SpecialReward> multipleRewards = new HashMap<>();
+        if (config.getBoolean("special_multiple_rewards.enabled", true)) {
+            ConfigurationSection multiplesSection = config.getConfigurationSection("special_multiple_rewards.multiples");
+            if (multiplesSection != null) {
+                for (String key : multiplesSection.getKeys(false)) {
+                    Integer multiple = parsePositiveInt(key, "special_multiple_rewards.multiples", logger);
+                    if (multiple == null || !multiplesSection.isConfigurationSection(key)) {
+                        continue;
+                    }
+                    multipleRewards.put(multiple, loadSpecialReward(multiplesSection.getConfigurationSection(key),
+                            "special_multiple_rewards.multiples." + key, logger));
+                }
+            }
+        }
+        int[] multiples = new int[multipleRewards.size()];
+        int index = 0;
+        for (int multiple : multipleRewards.keySet()) {
+            multiples[index++] = multiple;
+        }
+        Arrays.sort(multiples);
+
+        return new RewardTable(Collections.unmodifiableList(baseItems), Collections.unmodifiableMap(streakRewards),
+                multiples, Collections.unmodifiableMap(multipleRewards));
+    }
+
+    /**
+     * @return 基本報酬アイテム（ストリーク分の加算前の個数）
+     */
+    public List<RewardItem> getBaseItems() {
+        return baseItems;
+    }
+
+    /**
+     * 指定したストリーク日数ちょうどの特殊報酬を取得
+     * @return 設定されていない場合はnull
+     */
+    public SpecialReward getStreakReward(int streak) {
+        return streakRewards.get(streak);
+    }
+
+    /**
+     * ストリーク日数を割り切る最大の倍数の特殊報酬を取得
+     * @return 該当する倍数がない場合はnull
+     */
+    public SpecialReward getMultipleReward(int streak) {
+        if (streak <= 0) {
+            return null;
+        }
+        // 大きい倍数から順に判定する
+        for (int i = multiples.length - 1; i >= 0; i--) {
+            if (streak % multiples[i] == 0) {
+                return multipleRewards.get(multiples[i]);
+            }
+        }
+        return null;
+    }
+
+    private static SpecialReward loadSpecialReward(ConfigurationSection section, String path, Logger logger) {
+        List<RewardItem> items = loadItems(section.getMapList("items"), path + ".items", logger);
+        String message = section.getString("message");
+        if (message != null) {
+            message = ChatColor.translateAlternateColorCodes('&', message);
+        }
+        return new SpecialReward(Collections.unmodifiableList(items), message);
+    }
+
+    private static List<RewardItem> loadItems(List<Map<?, ?>> itemMaps, String path, Logger logger) {
+        List<RewardItem> items = new ArrayList<>();
+        for (Map<?, ?> itemMap : itemMaps) {
+            Object itemName = itemMap.get("item");
+            if (itemName == null) itemName = itemMap.get("type");
+            if (itemName == null) {
+                logger.warning(path + ": アイテム設定にitem/typeが見つかりません");
+                continue;
+            }
+            Object amount = itemMap.get("amount");
+            if (!(amount instanceof Number)) {
+                logger.warning(path + ": アイテム " + itemName + " のamountが設定されていないか、数値ではありません");
+                continue;
+            }
+            int baseAmount = ((Number) amount).intValue();
+            if (baseAmount <= 0) {
+                logger.warning(path + ": アイテム " + itemName + " のamountは1以上で指定してください: " + baseAmount);
+                continue;
+            }
+            Material material = Material.getMaterial(itemName.toString().toUpperCase());
+            if (material == null) {
+                logger.warning(path + ": 無効なアイテム名: " + itemName);
+                continue;
+            }
+            items.add(new RewardItem(material, baseAmount));
+        }
+        return items;
+    }
+
+    private static Integer parsePositiveInt(String key, String path, Logger logger) {
+        try {
+            int value = Integer.parseInt(key);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+            // 下で警告を出力
+        }
+        logger.warning(path + ": 日数は1以上の整数で指定してください: " + key);
+        return null;
+    }
+
+    /**
+     * 解決済みの報酬アイテム
+     */
+    public static final class RewardItem {
+        private final Material material;
+        private final int amount;
+
+        private RewardItem(Material material, int amount) {
+            this.material = material;
+            this.amount = amount;
+        }
+
+        public Material getMaterial() {
+            return material;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+    }
+
+    /**
+     * 特殊ストリーク報酬（アイテムとメッセージ）
+     */
+    public static final class SpecialReward {
+        private final List<RewardItem> items;
+        private final String message;
+
+        private SpecialReward(List<RewardItem> items, String message) {
+            this.items = items;
+            this.message = message;
+        }
+
+        public List<RewardItem> getItems() {
+            return items;
+        }
+
+        /**
+         * @return 装飾コード変換済みのメッセージ、設定されていない場合はnull
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+}
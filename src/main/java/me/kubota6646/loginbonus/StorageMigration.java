@@ -0,0 +1,230 @@
+package me.kubota6646.loginbonus;
+
+import me.kubota6646.loginbonus.storage.PlayerRecord;
+import me.kubota6646.loginbonus.storage.StorageFactory;
+import me.kubota6646.loginbonus.storage.StorageInterface;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ストレージ間のデータ移行（/rewardmigrate）
+ * 別スレッドで移行元のデータをUUIDの順に一定件数ずつ読み込み、移行先には1チャンクずつ1回の一括書き込みで保存します。
+ * チャンクの書き込みが完了するたびにチェックポイントを保存するため、中止やサーバーの停止後は続きから再開できます。
+ */
+public class StorageMigration {
+
+    private static final String CHECKPOINT_FILE = "migration-checkpoint.yml";
+
+    private final Main plugin;
+    private final CommandSender sender;
+    private final String fromType;
+    private final String toType;
+    private final int chunkSize;
+    private final long progressIntervalMillis;
+    private final File checkpointFile;
+    private volatile boolean cancelled;
+    private Thread thread;
+
+    public StorageMigration(Main plugin, CommandSender sender, String fromType, String toType) {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.fromType = fromType;
+        this.toType = toType;
+        this.chunkSize = Math.max(1, plugin.getConfig().getInt("migration.chunk-size", 1000));
+        this.progressIntervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, plugin.getConfig().getInt("migration.progress-interval", 5)));
+        this.checkpointFile = new File(plugin.getDataFolder(), CHECKPOINT_FILE);
+    }
+
+    /**
+     * 移行を別スレッドで開始する
+     * @param restart trueの場合はチェックポイントを破棄して最初から移行する
+     * @param onFinish 移行の終了時（完了・中止・失敗のいずれも）に移行スレッドで実行する処理
+     */
+    public synchronized void start(boolean restart, Runnable onFinish) {
+        thread = new Thread(() -> {
+            try {
+                run(restart);
+            } finally {
+                onFinish.run();
+            }
+        }, "LoginBonus-Migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 移行を中止する
+     * 書き込み中のチャンクの完了後に停止し、チェックポイントは次回の再開のために残ります
+     * @param waitMillis 停止を待つ最大時間（ミリ秒、0の場合は待たない）
+     */
+    public void cancel(long waitMillis) {
+        cancelled = true;
+        Thread running;
+        synchronized (this) {
+            running = thread;
+        }
+        if (running != null && waitMillis > 0) {
+            try {
+                running.join(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public String getFromType() {
+        return fromType;
+    }
+
+    public String getToType() {
+        return toType;
+    }
+
+    private void run(boolean restart) {
+        long startedAt = System.nanoTime();
+        UUID cursor = null;
+        long migrated = 0;
+
+        YamlConfiguration checkpoint = loadCheckpoint();
+        if (checkpoint != null && !restart) {
+            cursor = parseUuid(checkpoint.getString("last-uuid"));
+            migrated = checkpoint.getLong("migrated", 0L);
+            notify(plugin.getMessage("migrate-resuming", "&e前回のチェックポイントから移行を再開します（移行済み: %count% 件）",
+                "%count%", String.valueOf(migrated)));
+        }
+        long resumedCount = migrated;
+
+        StorageInterface fromStorage = StorageFactory.createStorage(plugin, fromType);
+        StorageInterface toStorage = StorageFactory.createStorage(plugin, toType);
+        try {
+            fromStorage.initialize();
+            toStorage.initialize();
+
+            long lastReport = System.currentTimeMillis();
+            while (!cancelled) {
+                List<PlayerRecord> chunk = fromStorage.scanRecords(cursor, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                // 1チャンクを1回の一括書き込みで保存し、完了してからチェックポイントを進める
+                if (!toStorage.saveRecordsAndWait(chunk)) {
+                    throw new IllegalStateException("移行先への書き込みに失敗しました（" + chunk.size() + " 件）");
+                }
+                cursor = chunk.get(chunk.size() - 1).getPlayerId();
+                migrated += chunk.size();
+                saveCheckpoint(cursor, migrated);
+
+                long now = System.currentTimeMillis();
+                if (now - lastReport >= progressIntervalMillis) {
+                    lastReport = now;
+                    notify(plugin.getMessage("migrate-progress", "&e%count% 件のプレイヤーデータを移行しました（%rate% 件/秒）",
+                        "%count%", String.valueOf(migrated), "%rate%", String.valueOf(rate(migrated - resumedCount, startedAt))));
+                }
+            }
+
+            if (cancelled) {
+                notify(plugin.getMessage("migrate-cancelled", "&eデータ移行を中止しました（移行済み: %count% 件）。同じコマンドで続きから再開できます。",
+                    "%count%", String.valueOf(migrated)));
+                return;
+            }
+            if (migrated == 0) {
+                deleteCheckpoint();
+                notify(plugin.getMessage("migrate-no-data", "&e移行するプレイヤーデータが見つかりませんでした。"));
+                return;
+            }
+
+            deleteCheckpoint();
+            plugin.getLogger().info("データ移行が完了しました: " + fromType + " -> " + toType + "（" + migrated + " 件、" +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) + "ms、" + rate(migrated - resumedCount, startedAt) + " 件/秒）");
+            notify(plugin.getMessage("migrate-success", "&aデータ移行が完了しました。%count% 件のプレイヤーデータを移行しました。",
+                "%count%", String.valueOf(migrated)));
+            notify(plugin.getMessage("migrate-reminder", "&econfig.yml の storage-type を '%type%' に変更して /rewardreload を実行してください。",
+                "%type%", toType));
+        } catch (RuntimeException e) {
+            notify(plugin.getMessage("migrate-error", "&cデータ移行中にエラーが発生しました: %error%",
+                "%error%", e.getMessage()));
+            plugin.getLogger().severe("データ移行中にエラーが発生しました（移行済み: " + migrated + " 件）: " + e.getMessage());
+            plugin.getLogger().severe("スタックトレース: " + e.getClass().getName());
+            for (StackTraceElement element : e.getStackTrace()) {
+                plugin.getLogger().severe("  at " + element.toString());
+            }
+        } finally {
+            fromStorage.close();
+            toStorage.close();
+        }
+    }
+
+    /**
+     * 同じ移行元と移行先のチェックポイントを読み込む
+     * @return チェックポイント、存在しないか別の移行のものであればnull
+     */
+    private YamlConfiguration loadCheckpoint() {
+        if (!checkpointFile.exists()) {
+            return null;
+        }
+        YamlConfiguration checkpoint = YamlConfiguration.loadConfiguration(checkpointFile);
+        if (!fromType.equals(checkpoint.getString("from")) || !toType.equals(checkpoint.getString("to"))) {
+            plugin.getLogger().info("別の移行（" + checkpoint.getString("from") + " -> " + checkpoint.getString("to") + "）のチェックポイントを破棄します");
+            return null;
+        }
+        return checkpoint;
+    }
+
+    private void saveCheckpoint(UUID cursor, long migrated) {
+        YamlConfiguration checkpoint = new YamlConfiguration();
+        checkpoint.set("from", fromType);
+        checkpoint.set("to", toType);
+        checkpoint.set("last-uuid", cursor.toString());
+        checkpoint.set("migrated", migrated);
+        checkpoint.set("updated-at", System.currentTimeMillis());
+        try {
+            checkpoint.save(checkpointFile);
+        } catch (IOException e) {
+            // 移行は続行し、再開時に書き込み済みのチャンクを再度書き込む（上書きのため結果は変わらない）
+            plugin.getLogger().warning("移行のチェックポイントの保存に失敗しました: " + e.getMessage());
+        }
+    }
+
+    private void deleteCheckpoint() {
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            plugin.getLogger().warning(CHECKPOINT_FILE + " の削除に失敗しました");
+        }
+    }
+
+    private UUID parseUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("チェックポイントのUUIDが無効なため、最初から移行します: " + value);
+            return null;
+        }
+    }
+
+    private static long rate(long count, long startedAt) {
+        long elapsedMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return count * 1000L / elapsedMillis;
+    }
+
+    /**
+     * 実行者にメッセージを送信する（プレイヤーが実行した場合はコンソールにも出力）
+     */
+    private void notify(String message) {
+        if (!(sender instanceof ConsoleCommandSender)) {
+            plugin.getLogger().info(ChatColor.stripColor(message));
+        }
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(message));
+        }
+    }
+}
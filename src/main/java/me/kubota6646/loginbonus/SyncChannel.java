@@ -0,0 +1,152 @@
+package me.kubota6646.loginbonus;
+
+import me.kubota6646.loginbonus.storage.PlayerRecord;
+import me.kubota6646.loginbonus.storage.StorageInterface;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BungeeCordのプラグインメッセージを使用したサーバー間のデータ変更通知（MySQL使用時のみ）
+ * プレイヤーデータを変更したサーバーが通知を送信し、Bungeecord版LoginBonusが他のサーバーへ転送します。
+ * 受信したサーバーは保持しているコピーを読み直し、オンラインのプレイヤーのトラッキングに反映します。
+ * プラグインメッセージはプレイヤーの接続を経由して送信されるため、送信元のサーバーに誰もいない場合は通知されません。
+ */
+public class SyncChannel implements PluginMessageListener {
+
+    private final Main plugin;
+    private boolean enabled;
+
+    public SyncChannel(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * チャンネルを登録する（MySQL使用時かつ sync.enabled が true の場合のみ）
+     */
+    public void register() {
+        String storageType = plugin.getConfig().getString("storage-type", "yaml").toLowerCase();
+        if (!storageType.equals("mysql") || !plugin.getConfig().getBoolean("sync.enabled", true)) {
+            return;
+        }
+        plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin, SyncMessage.CHANNEL);
+        plugin.getServer().getMessenger().registerIncomingPluginChannel(plugin, SyncMessage.CHANNEL, this);
+        enabled = true;
+        plugin.getLogger().info("サーバー間のデータ変更通知を有効化しました（チャンネル: " + SyncMessage.CHANNEL + "）");
+    }
+
+    /**
+     * チャンネルの登録を解除する
+     */
+    public void unregister() {
+        if (!enabled) {
+            return;
+        }
+        plugin.getServer().getMessenger().unregisterOutgoingPluginChannel(plugin);
+        plugin.getServer().getMessenger().unregisterIncomingPluginChannel(plugin);
+        enabled = false;
+    }
+
+    /**
+     * 変更を他のサーバーへ通知する
+     * 未保存の変更を書き込んでから送信するため、受信側は最新のデータを読み込めます
+     * @param message 通知するメッセージ
+     */
+    public void publish(SyncMessage message) {
+        publishAll(Collections.singletonList(message));
+    }
+
+    /**
+     * 複数の変更をまとめて他のサーバーへ通知する
+     * @param messages 通知するメッセージ
+     */
+    public void publishAll(Collection<SyncMessage> messages) {
+        if (!enabled || messages.isEmpty()) {
+            return;
+        }
+        List<byte[]> payloads = new ArrayList<>();
+        for (SyncMessage message : messages) {
+            payloads.add(message.encode());
+        }
+        plugin.getStorage().saveAsync().whenComplete((ignored, error) -> {
+            if (error != null) {
+                plugin.getLogger().warning("データの保存に失敗したため、変更の通知を中止しました: " + error.getMessage());
+                return;
+            }
+            // プラグインメッセージはメインスレッドから送信する
+            plugin.getServer().getScheduler().runTask(plugin, () -> send(payloads));
+        });
+    }
+
+    private void send(List<byte[]> payloads) {
+        // プラグインメッセージはいずれかのプレイヤーの接続を経由してプロキシに届く
+        Player carrier = null;
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            carrier = player;
+            break;
+        }
+        if (carrier == null) {
+            plugin.getLogger().fine("オンラインのプレイヤーがいないため、" + payloads.size() + " 件の変更を通知できませんでした");
+            return;
+        }
+        for (byte[] payload : payloads) {
+            carrier.sendPluginMessage(plugin, SyncMessage.CHANNEL, payload);
+        }
+    }
+
+    @Override
+    public void onPluginMessageReceived(@NotNull String channel, @NotNull Player player, byte[] data) {
+        if (!SyncMessage.CHANNEL.equals(channel)) {
+            return;
+        }
+        SyncMessage message = SyncMessage.decode(data);
+        if (message == null) {
+            plugin.getLogger().warning("解析できない変更通知を受信しました（" + data.length + " バイト）");
+            return;
+        }
+        if (!plugin.isStorageReady()) {
+            // 初期化の完了後に参加済みのプレイヤーのデータを読み込むため、ここでは何もしない
+            return;
+        }
+        if (message.getType() == SyncMessage.Type.ALL_DELETED) {
+            applyAllDeleted();
+            return;
+        }
+        // このサーバーにいないプレイヤーのデータは保持していないため、何もしない
+        Player target = plugin.getServer().getPlayer(message.getPlayerId());
+        if (target == null) {
+            return;
+        }
+        StorageInterface storage = plugin.getStorage();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            storage.invalidatePlayer(message.getPlayerId());
+            PlayerRecord record = storage.loadRecord(message.getPlayerId());
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (target.isOnline() && plugin.getEventListener() != null) {
+                    plugin.getEventListener().applyRemoteChange(target, record, message.getType() == SyncMessage.Type.RESET);
+                }
+            });
+        });
+    }
+
+    private void applyAllDeleted() {
+        plugin.getLogger().info("他のサーバーで全プレイヤーのデータが削除されました。トラッキングをやり直します。");
+        StorageInterface storage = plugin.getStorage();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            storage.invalidateAll();
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (plugin.getEventListener() == null) {
+                    return;
+                }
+                for (Player player : plugin.getServer().getOnlinePlayers()) {
+                    plugin.getEventListener().applyRemoteChange(player, null, true);
+                }
+            });
+        });
+    }
+}
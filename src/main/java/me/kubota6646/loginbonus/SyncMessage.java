@@ -0,0 +1,137 @@
+package me.kubota6646.loginbonus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * サーバー間でプレイヤーデータの変更を通知するメッセージ
+ * Bukkit版とBungeecord版の両方で使用するため、どちらのAPIにも依存しません。
+ */
+public final class SyncMessage {
+
+    /** プラグインメッセージのチャンネル名 */
+    public static final String CHANNEL = "loginbonus:sync";
+
+    /** ストリークが変更されていないことを表す値 */
+    public static final int STREAK_UNCHANGED = -1;
+
+    private static final byte VERSION = 1;
+
+    /**
+     * 変更の種類
+     */
+    public enum Type {
+        /** ストリークや受け取り状況が変更された（累積時間は受信側のセッションを維持） */
+        UPDATED,
+        /** 累積時間のリセットやデータ削除（受信側は保存済みの値からトラッキングをやり直す） */
+        RESET,
+        /** 全プレイヤーのデータが削除された */
+        ALL_DELETED
+    }
+
+    private final Type type;
+    private final UUID playerId;
+    private final int streak;
+
+    private SyncMessage(Type type, UUID playerId, int streak) {
+        this.type = type;
+        this.playerId = playerId;
+        this.streak = streak;
+    }
+
+    /**
+     * ストリークや受け取り状況の変更
+     * @param playerId プレイヤーのUUID
+     * @param streak 変更後のストリーク日数（変更していない場合は {@link #STREAK_UNCHANGED}）
+     */
+    public static SyncMessage updated(UUID playerId, int streak) {
+        return new SyncMessage(Type.UPDATED, playerId, streak);
+    }
+
+    /**
+     * 累積時間のリセットまたはデータ削除
+     * @param playerId プレイヤーのUUID
+     * @param streak 変更後のストリーク日数（変更していない場合は {@link #STREAK_UNCHANGED}）
+     */
+    public static SyncMessage reset(UUID playerId, int streak) {
+        return new SyncMessage(Type.RESET, playerId, streak);
+    }
+
+    /**
+     * 全プレイヤーのデータ削除
+     */
+    public static SyncMessage allDeleted() {
+        return new SyncMessage(Type.ALL_DELETED, null, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return プレイヤーのUUID（{@link Type#ALL_DELETED} の場合はnull）
+     */
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * @return 変更後のストリーク日数、変更していない場合は {@link #STREAK_UNCHANGED}
+     */
+    public int getStreak() {
+        return streak;
+    }
+
+    /**
+     * 送信用のバイト列に変換
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(30);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(type.ordinal());
+            if (type != Type.ALL_DELETED) {
+                out.writeLong(playerId.getMostSignificantBits());
+                out.writeLong(playerId.getLeastSignificantBits());
+                out.writeInt(streak);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream への書き込みでは発生しない
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 受信したバイト列を解析
+     * @return 解析できない場合（別バージョンからのメッセージなど）はnull
+     */
+    public static SyncMessage decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            int ordinal = in.readByte();
+            if (ordinal < 0 || ordinal >= Type.values().length) {
+                return null;
+            }
+            Type type = Type.values()[ordinal];
+            if (type == Type.ALL_DELETED) {
+                return allDeleted();
+            }
+            UUID playerId = new UUID(in.readLong(), in.readLong());
+            return new SyncMessage(type, playerId, in.readInt());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SyncMessage{" + type + ", " + playerId + ", streak=" + streak + "}";
+    }
+}
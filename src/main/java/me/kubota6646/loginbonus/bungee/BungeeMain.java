@@ -1,5 +1,6 @@
 package me.kubota6646.loginbonus.bungee;
 
+import me.kubota6646.loginbonus.SyncMessage;
 import net.md_5.bungee.api.plugin.Plugin;
 import net.md_5.bungee.config.Configuration;
 import net.md_5.bungee.config.ConfigurationProvider;
@@ -18,6 +19,7 @@ import java.nio.file.StandardCopyOption;
 public class BungeeMain extends Plugin {
     
     private BungeeMySqlReader storage;
+    private BungeeStreakSnapshot streakSnapshot;
     private Configuration config;
     
     @Override
@@ -30,6 +32,14 @@ public class BungeeMain extends Plugin {
         storage = new BungeeMySqlReader(this);
         storage.initialize();
         
+        // Plan表示用のストリークキャッシュを開始
+        streakSnapshot = new BungeeStreakSnapshot(this);
+        streakSnapshot.start();
+        
+        // サーバー間のデータ変更通知を中継
+        getProxy().registerChannel(SyncMessage.CHANNEL);
+        getProxy().getPluginManager().registerListener(this, new BungeeSyncListener(this));
+        
         // Plan連携を登録
         registerPlanExtension();
         
@@ -45,6 +55,11 @@ public class BungeeMain extends Plugin {
     public void onDisable() {
         getLogger().info("LoginBonus (Bungeecord) を無効化しています...");
         
+        if (streakSnapshot != null) {
+            streakSnapshot.stop();
+        }
+        getProxy().unregisterChannel(SyncMessage.CHANNEL);
+        
         // ストレージを閉じる
         if (storage != null) {
             storage.close();
@@ -98,6 +113,13 @@ public class BungeeMain extends Plugin {
         return storage;
     }
     
+    /**
+     * Plan表示用のストリークキャッシュを取得
+     */
+    public BungeeStreakSnapshot getStreakSnapshot() {
+        return streakSnapshot;
+    }
+    
     /**
      * Plan Data Extensionを登録
      */
@@ -1,10 +1,16 @@
 package me.kubota6646.loginbonus.bungee;
 
+import me.kubota6646.loginbonus.storage.CompactColumns;
+import me.kubota6646.loginbonus.storage.ConnectionPool;
+import me.kubota6646.loginbonus.storage.ConnectionPool.PooledConnection;
+import me.kubota6646.loginbonus.storage.StreakEntry;
 import net.md_5.bungee.config.Configuration;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -14,7 +20,7 @@ import java.util.UUID;
 public class BungeeMySqlReader {
     
     private final BungeeMain plugin;
-    private Connection connection;
+    private ConnectionPool pool;
     private final String host;
     private final int port;
     private final String database;
@@ -22,6 +28,12 @@ public class BungeeMySqlReader {
     private final String username;
     private final String password;
     private final boolean useSSL;
+    private final int maximumPoolSize;
+    private final int minimumIdle;
+    private final long connectionTimeout;
+    private final long validationInterval;
+    /** テーブルがv2形式（UUIDが16バイト）か（バックエンドサーバーの移行に合わせて読み取り時に更新） */
+    private volatile boolean binaryKeys = true;
     
     public BungeeMySqlReader(BungeeMain plugin) {
         this.plugin = plugin;
@@ -43,6 +55,10 @@ public class BungeeMySqlReader {
         this.username = config.getString("mysql.username", "root");
         this.password = config.getString("mysql.password", "password");
         this.useSSL = config.getBoolean("mysql.use-ssl", false);
+        this.maximumPoolSize = config.getInt("mysql.connection-pool.maximum-pool-size", 10);
+        this.minimumIdle = config.getInt("mysql.connection-pool.minimum-idle", 2);
+        this.connectionTimeout = config.getLong("mysql.connection-pool.connection-timeout", 30000L);
+        this.validationInterval = config.getLong("mysql.connection-pool.validation-interval", 30000L);
         
         if (!this.useSSL && !this.host.equals("localhost") && !this.host.equals("127.0.0.1")) {
             plugin.getLogger().warning("警告: リモートデータベースへのSSL接続が無効になっています。セキュリティのため有効化を推奨します。");
@@ -58,31 +74,23 @@ public class BungeeMySqlReader {
             String url = String.format("jdbc:mysql://%s:%d/%s?useSSL=%s&serverTimezone=UTC&allowPublicKeyRetrieval=true",
                     host, port, database, useSSL);
             
-            // 接続を確立
-            connection = DriverManager.getConnection(url, username, password);
+            // コネクションプールを作成
+            pool = new ConnectionPool("LoginBonus-MySQL", plugin.getLogger(),
+                    () -> DriverManager.getConnection(url, username, password),
+                    maximumPoolSize, minimumIdle, connectionTimeout, validationInterval);
+            pool.start();
             
-            plugin.getLogger().info("MySQLデータベースに接続しました");
-        } catch (SQLException e) {
-            plugin.getLogger().severe("MySQLデータベースの接続に失敗しました: " + e.getMessage());
-            plugin.getLogger().severe("データベースの接続情報とデータベースが存在することを確認してください。");
-        }
-    }
-    
-    /**
-     * 接続が切れている場合に再接続
-     */
-    private void reconnectIfNeeded() throws SQLException {
-        try {
-            if (connection == null || connection.isClosed() || !connection.isValid(1)) {
-                plugin.getLogger().warning("MySQL接続が切断されました。再接続を試みます...");
-                initialize();
-                if (connection == null || connection.isClosed()) {
-                    throw new SQLException("MySQL再接続に失敗しました。");
+            try (PooledConnection pooled = pool.borrow();
+                 ResultSet columns = pooled.get().getMetaData().getColumns(pooled.get().getCatalog(), null, tableName, "uuid")) {
+                if (columns.next()) {
+                    binaryKeys = !columns.getString("TYPE_NAME").toUpperCase().contains("CHAR");
                 }
             }
+            
+            plugin.getLogger().info("MySQLデータベースに接続しました（最大接続数: " + pool.getMaximumPoolSize() + "）");
         } catch (SQLException e) {
-            plugin.getLogger().severe("MySQL再接続チェックに失敗しました: " + e.getMessage());
-            throw e;
+            plugin.getLogger().severe("MySQLデータベースの接続に失敗しました: " + e.getMessage());
+            plugin.getLogger().severe("データベースの接続情報とデータベースが存在することを確認してください。");
         }
     }
     
@@ -93,12 +101,11 @@ public class BungeeMySqlReader {
      */
     public int getStreak(UUID playerId) {
         try {
-            reconnectIfNeeded();
-            
             // Note: tableName は正規表現で検証済み（コンストラクタ参照）
             String sql = "SELECT streak FROM " + tableName + " WHERE uuid = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, playerId.toString());
+            try (PooledConnection pooled = pool.borrow();
+                 PreparedStatement stmt = pooled.get().prepareStatement(sql)) {
+                bindUuid(stmt, 1, playerId);
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
                         return rs.getInt("streak");
@@ -119,18 +126,15 @@ public class BungeeMySqlReader {
     public List<UUID> getAllPlayerUUIDs() {
         List<UUID> players = new ArrayList<>();
         try {
-            reconnectIfNeeded();
-            
             // Note: tableName は正規表現で検証済み（コンストラクタ参照）
             String sql = "SELECT uuid FROM " + tableName;
-            try (Statement stmt = connection.createStatement();
+            try (PooledConnection pooled = pool.borrow();
+                 Statement stmt = pooled.get().createStatement();
                  ResultSet rs = stmt.executeQuery(sql)) {
                 while (rs.next()) {
-                    String uuidStr = rs.getString("uuid");
-                    try {
-                        players.add(UUID.fromString(uuidStr));
-                    } catch (IllegalArgumentException e) {
-                        plugin.getLogger().warning("無効なUUID: " + uuidStr);
+                    UUID uuid = readUuid(rs);
+                    if (uuid != null) {
+                        players.add(uuid);
                     }
                 }
             }
@@ -140,6 +144,62 @@ public class BungeeMySqlReader {
         return players;
     }
     
+    /**
+     * 全プレイヤーのストリークを1回のクエリで取得
+     * @return UUIDとストリーク日数のMap
+     */
+    public Map<UUID, Integer> getAllStreaks() {
+        Map<UUID, Integer> streaks = new HashMap<>();
+        try {
+            // Note: tableName は正規表現で検証済み（コンストラクタ参照）
+            String sql = "SELECT uuid, streak FROM " + tableName;
+            try (PooledConnection pooled = pool.borrow();
+                 Statement stmt = pooled.get().createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    UUID uuid = readUuid(rs);
+                    if (uuid != null) {
+                        streaks.put(uuid, rs.getInt("streak"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("ストリーク一覧の取得に失敗しました: " + e.getMessage());
+            return null;
+        }
+        return streaks;
+    }
+    
+    /**
+     * ストリーク日数の多い順に上位のプレイヤーを取得（ストリークが0以下のプレイヤーは除外）
+     * @param limit 取得する最大件数
+     * @return ストリーク日数の降順に並んだリスト、取得に失敗した場合はnull
+     */
+    public List<StreakEntry> topStreaks(int limit) {
+        List<StreakEntry> entries = new ArrayList<>();
+        try {
+            // Note: tableName は正規表現で検証済み（コンストラクタ参照）
+            String sql = "SELECT uuid, player_name, streak FROM " + tableName +
+                    " WHERE streak > 0 ORDER BY streak DESC LIMIT ?";
+            try (PooledConnection pooled = pool.borrow();
+                 PreparedStatement stmt = pooled.get().prepareStatement(sql)) {
+                stmt.setInt(1, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        UUID uuid = readUuid(rs);
+                        if (uuid != null) {
+                            entries.add(new StreakEntry(uuid, rs.getString("player_name"), rs.getInt("streak")));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("ストリークランキングの取得に失敗しました: " + e.getMessage());
+            return null;
+        }
+        return entries;
+    }
+    
     /**
      * プレイヤー名を取得
      * @param playerId プレイヤーのUUID
@@ -147,11 +207,10 @@ public class BungeeMySqlReader {
      */
     public String getPlayerName(UUID playerId) {
         try {
-            reconnectIfNeeded();
-            
             String sql = "SELECT player_name FROM " + tableName + " WHERE uuid = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, playerId.toString());
+            try (PooledConnection pooled = pool.borrow();
+                 PreparedStatement stmt = pooled.get().prepareStatement(sql)) {
+                bindUuid(stmt, 1, playerId);
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
                         String name = rs.getString("player_name");
@@ -169,17 +228,46 @@ public class BungeeMySqlReader {
         return null;
     }
     
+    /**
+     * uuid 列を読み取る
+     * v2形式（16バイト）とv1形式（文字列）のどちらにも対応し、読み取った形式を以降の検索に使用します
+     * @return UUID、解析できない場合はnull
+     */
+    private UUID readUuid(ResultSet rs) throws SQLException {
+        byte[] bytes = rs.getBytes("uuid");
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length == 16) {
+            binaryKeys = true;
+            return CompactColumns.fromBytes(bytes);
+        }
+        String uuidStr = new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+        try {
+            UUID uuid = UUID.fromString(uuidStr);
+            binaryKeys = false;
+            return uuid;
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("無効なUUID: " + uuidStr);
+            return null;
+        }
+    }
+    
+    private void bindUuid(PreparedStatement stmt, int index, UUID playerId) throws SQLException {
+        if (binaryKeys) {
+            stmt.setBytes(index, CompactColumns.toBytes(playerId));
+        } else {
+            stmt.setString(index, playerId.toString());
+        }
+    }
+    
     /**
      * 接続を閉じる
      */
     public void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-                plugin.getLogger().info("MySQLデータベース接続を閉じました");
-            } catch (SQLException e) {
-                plugin.getLogger().warning("MySQLデータベース接続のクローズに失敗しました: " + e.getMessage());
-            }
+        if (pool != null) {
+            pool.close();
+            plugin.getLogger().info("MySQLデータベース接続を閉じました");
         }
     }
 }
@@ -0,0 +1,147 @@
+package me.kubota6646.loginbonus.bungee;
+
+import me.kubota6646.loginbonus.SyncMessage;
+import me.kubota6646.loginbonus.storage.StreakEntry;
+import net.md_5.bungee.api.scheduler.ScheduledTask;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plan表示用のストリークのスナップショット
+ * ランキングと全プレイヤーのストリークを一定間隔でバックグラウンドから読み込み、不変のスナップショットとして保持します。
+ * Planからの呼び出しはMySQLにアクセスせず、メモリ上のスナップショットから即座に返します。
+ * バックエンドサーバーからの変更通知で受け取ったストリークは、次の再読み込みまでスナップショットより優先されます。
+ */
+public class BungeeStreakSnapshot {
+
+    /** ランキングに表示する最大人数 */
+    public static final int RANKING_SIZE = 50;
+    private static final int MIN_TTL_SECONDS = 10;
+
+    private final BungeeMain plugin;
+    private final long ttlSeconds;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final Map<UUID, StreakUpdate> updates = new ConcurrentHashMap<>(); // 変更通知で受け取ったストリーク
+    private ScheduledTask refreshTask;
+
+    public BungeeStreakSnapshot(BungeeMain plugin) {
+        this.plugin = plugin;
+        long ttl = plugin.getPluginConfig().getLong("plan-cache.ttl", 60L);
+        if (ttl < MIN_TTL_SECONDS) {
+            plugin.getLogger().warning("plan-cache.ttl が小さすぎます（" + ttl + "秒）。最小値の" + MIN_TTL_SECONDS + "秒を使用します。");
+            ttl = MIN_TTL_SECONDS;
+        }
+        this.ttlSeconds = ttl;
+    }
+
+    /**
+     * 初回の読み込みを開始し、以降はTTLごとに再読み込みする
+     */
+    public void start() {
+        refreshTask = plugin.getProxy().getScheduler().schedule(plugin, this::refresh, 0L, ttlSeconds, TimeUnit.SECONDS);
+        plugin.getLogger().info("Plan表示用のストリークキャッシュを有効化しました（更新間隔: " + ttlSeconds + " 秒）");
+    }
+
+    /**
+     * 定期的な再読み込みを停止する
+     */
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+    }
+
+    /**
+     * MySQLから読み込み直してスナップショットを置き換える
+     * 読み込みに失敗した場合は前回のスナップショットを使い続けます
+     */
+    private void refresh() {
+        // 前回の読み込みが終わっていない場合は重ねて実行しない
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        try {
+            BungeeMySqlReader storage = plugin.getStorage();
+            List<StreakEntry> ranking = storage.topStreaks(RANKING_SIZE);
+            Map<UUID, Integer> streaks = storage.getAllStreaks();
+            if (ranking == null || streaks == null) {
+                return;
+            }
+            snapshot = new Snapshot(Collections.unmodifiableList(ranking), Collections.unmodifiableMap(streaks));
+            // 読み込み開始前に受け取った変更は保存後に通知されるため、新しいスナップショットに含まれている
+            updates.values().removeIf(update -> update.receivedAt < startedAt);
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("ストリークキャッシュの更新に失敗しました: " + e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * バックエンドサーバーからの変更通知を反映する
+     * @param message 変更通知
+     */
+    public void apply(SyncMessage message) {
+        if (message.getType() == SyncMessage.Type.ALL_DELETED) {
+            updates.clear();
+            snapshot = Snapshot.EMPTY;
+            plugin.getProxy().getScheduler().runAsync(plugin, this::refresh);
+            return;
+        }
+        if (message.getStreak() != SyncMessage.STREAK_UNCHANGED) {
+            updates.put(message.getPlayerId(), new StreakUpdate(message.getStreak(), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * @return ストリーク日数の多い順に並んだ上位のプレイヤー（最大 {@link #RANKING_SIZE} 名）
+     */
+    public List<StreakEntry> getRanking() {
+        return snapshot.ranking;
+    }
+
+    /**
+     * プレイヤーのストリークを取得
+     * @param playerId プレイヤーのUUID
+     * @return ストリーク日数、スナップショットに存在しない場合は0
+     */
+    public int getStreak(UUID playerId) {
+        StreakUpdate update = updates.get(playerId);
+        if (update != null) {
+            return update.streak;
+        }
+        Integer streak = snapshot.streaks.get(playerId);
+        return streak != null ? streak : 0;
+    }
+
+    private static final class StreakUpdate {
+        private final int streak;
+        private final long receivedAt;
+
+        private StreakUpdate(int streak, long receivedAt) {
+            this.streak = streak;
+            this.receivedAt = receivedAt;
+        }
+    }
+
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyList(), Collections.emptyMap());
+
+        private final List<StreakEntry> ranking;
+        private final Map<UUID, Integer> streaks;
+
+        private Snapshot(List<StreakEntry> ranking, Map<UUID, Integer> streaks) {
+            this.ranking = ranking;
+            this.streaks = streaks;
+        }
+    }
+}
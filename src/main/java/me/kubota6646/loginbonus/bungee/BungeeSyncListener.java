@@ -0,0 +1,54 @@
+package me.kubota6646.loginbonus.bungee;
+
+import me.kubota6646.loginbonus.SyncMessage;
+import net.md_5.bungee.api.config.ServerInfo;
+import net.md_5.bungee.api.connection.Server;
+import net.md_5.bungee.api.event.PluginMessageEvent;
+import net.md_5.bungee.api.plugin.Listener;
+import net.md_5.bungee.event.EventHandler;
+
+/**
+ * サーバー間のデータ変更通知を中継するリスナー
+ * バックエンドサーバーから届いた通知を送信元以外の全サーバーへ転送し、Plan表示用のストリークキャッシュにも反映します。
+ */
+public class BungeeSyncListener implements Listener {
+
+    private final BungeeMain plugin;
+
+    public BungeeSyncListener(BungeeMain plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler
+    public void onPluginMessage(PluginMessageEvent event) {
+        if (!SyncMessage.CHANNEL.equals(event.getTag())) {
+            return;
+        }
+        // プレイヤーにもサーバーにも届けず、ここで処理する
+        event.setCancelled(true);
+
+        // クライアントから送られた通知は信用しない
+        if (!(event.getSender() instanceof Server)) {
+            return;
+        }
+        byte[] data = event.getData();
+        SyncMessage message = SyncMessage.decode(data);
+        if (message == null) {
+            plugin.getLogger().warning("解析できない変更通知を受信しました（" + data.length + " バイト）");
+            return;
+        }
+
+        // 送信元以外のサーバーへ転送（プレイヤーがいないサーバーはデータを保持していないため送らない）
+        ServerInfo origin = ((Server) event.getSender()).getInfo();
+        for (ServerInfo server : plugin.getProxy().getServers().values()) {
+            if (!server.getName().equals(origin.getName())) {
+                server.sendData(SyncMessage.CHANNEL, data, false);
+            }
+        }
+
+        BungeeStreakSnapshot snapshot = plugin.getStreakSnapshot();
+        if (snapshot != null) {
+            snapshot.apply(message);
+        }
+    }
+}
@@ -0,0 +1,687 @@
+package me.kubota6646.loginbonus.storage;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 書き込み遅延（write-behind）方式のメモリキャッシュ
+ * オンラインプレイヤーのデータを参加時にまとめて読み込み、読み取りはメモリから返します。
+ * 変更されたデータはプレイヤーごとにまとめられ、一定間隔・退出時・シャットダウン時にバックグラウンドで書き込まれます。
+ * 累積時間の加算はプレイヤーごとに合計され、他の変更があっても加算として書き込まれます（上書きしないため他のサーバーの加算を失わない）。
+ * 書き込みに失敗した変更はキャッシュに残り、次回の書き込みで再試行されます。
+ * キャッシュされていないプレイヤーへのアクセスは、そのまま元のストレージに委譲されます。
+ */
+public class CachedStorage implements StorageInterface {
+
+    private final JavaPlugin plugin;
+    private final StorageInterface delegate;
+    private final long flushIntervalSeconds;
+    private final Map<UUID, CachedPlayer> entries = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flushExecutor;
+
+    public CachedStorage(JavaPlugin plugin, StorageInterface delegate) {
+        this.plugin = plugin;
+        this.delegate = delegate;
+        long interval = plugin.getConfig().getLong("cache.flush-interval", 5L);
+        if (interval < 1) {
+            plugin.getLogger().warning("cache.flush-interval が小さすぎます（" + interval + "秒）。最小値の1秒を使用します。");
+            interval = 1;
+        }
+        this.flushIntervalSeconds = interval;
+    }
+
+    /**
+     * キャッシュの背後にある実際のストレージを取得
+     * @return 元のストレージ
+     */
+    public StorageInterface getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void initialize() {
+        delegate.initialize();
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LoginBonus-StorageFlush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushAllQuietly, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+        plugin.getLogger().info("ストレージキャッシュを有効化しました（書き込み間隔: " + flushIntervalSeconds + " 秒）");
+    }
+
+    @Override
+    public void loadPlayer(UUID playerId) {
+        // 退出処理の完了前に再参加した場合は同じエントリを使い続け、新しいセッションとして記録する
+        entries.compute(playerId, (id, entry) -> {
+            CachedPlayer loaded = entry != null ? entry : readFromDelegate(id);
+            loaded.startSession();
+            return loaded;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> unloadPlayer(UUID playerId) {
+        CachedPlayer entry = entries.get(playerId);
+        long session = entry != null ? entry.getSession() : 0L;
+        return CompletableFuture.runAsync(() -> {
+            if (entry != null) {
+                if (!flushEntry(entry)) {
+                    // 未保存の変更を失わないようキャッシュに残し、次回の定期書き込みで再試行する
+                    // リースは解放しないため、他のサーバーは handoff.max-wait の経過後に引き継ぐ
+                    plugin.getLogger().warning("退出したプレイヤーのデータを書き込めなかったため、キャッシュに残して再試行します: " + playerId);
+                    return;
+                }
+                // 書き込み中に再参加していた場合は新しいセッションのエントリとリースを残す
+                CachedPlayer remaining = entries.computeIfPresent(playerId,
+                        (id, current) -> current == entry && current.getSession() == session ? null : current);
+                if (remaining != null) {
+                    return;
+                }
+            }
+            // 書き込みの完了後に元のストレージの退出処理（リースの解放など）を行う
+            delegate.unloadPlayer(playerId).join();
+        }, flushExecutor);
+    }
+
+    private CachedPlayer readFromDelegate(UUID playerId) {
+        return new CachedPlayer(readRecord(playerId));
+    }
+
+    private PlayerRecord readRecord(UUID playerId) {
+        PlayerRecord record = delegate.loadRecord(playerId);
+        return record != null ? record : PlayerRecord.empty(playerId);
+    }
+
+    /**
+     * キャッシュされたレコードを取得
+     * @return キャッシュされていない場合はnull
+     */
+    private PlayerRecord cached(UUID playerId) {
+        CachedPlayer entry = entries.get(playerId);
+        return entry != null ? entry.get() : null;
+    }
+
+    /**
+     * キャッシュされたレコードを更新し、書き込み対象として記録する
+     * @return キャッシュされていない場合はfalse（呼び出し元で元のストレージに書き込む）
+     */
+    private boolean update(UUID playerId, UnaryOperator<PlayerRecord> change) {
+        CachedPlayer entry = entries.get(playerId);
+        if (entry == null) {
+            return false;
+        }
+        entry.update(change);
+        return true;
+    }
+
+    @Override
+    public double getCumulative(UUID playerId) {
+        PlayerRecord record = cached(playerId);
+        return record != null ? record.getCumulative() : delegate.getCumulative(playerId);
+    }
+
+    @Override
+    public void setCumulative(UUID playerId, double cumulative) {
+        if (!update(playerId, record -> record.withCumulative(cumulative))) {
+            delegate.setCumulative(playerId, cumulative);
+        }
+    }
+
+    @Override
+    public void addCumulative(UUID playerId, double minutes, String resetDate) {
+        CachedPlayer entry = entries.get(playerId);
+        if (entry != null) {
+            entry.addCumulative(minutes, resetDate);
+        } else {
+            delegate.addCumulative(playerId, minutes, resetDate);
+        }
+    }
+
+    @Override
+    public void addCumulatives(Map<UUID, Double> minutes, String resetDate) {
+        Map<UUID, Double> uncached = new HashMap<>();
+        for (Map.Entry<UUID, Double> entry : minutes.entrySet()) {
+            CachedPlayer cachedPlayer = entries.get(entry.getKey());
+            if (cachedPlayer != null) {
+                cachedPlayer.addCumulative(entry.getValue(), resetDate);
+            } else {
+                uncached.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!uncached.isEmpty()) {
+            delegate.addCumulatives(uncached, resetDate);
+        }
+    }
+
+    @Override
+    public String getLastReward(UUID playerId) {
+        PlayerRecord record = cached(playerId);
+        return record != null ? record.getLastReward() : delegate.getLastReward(playerId);
+    }
+
+    @Override
+    public void setLastReward(UUID playerId, String lastReward) {
+        if (!update(playerId, record -> record.withLastReward(lastReward))) {
+            delegate.setLastReward(playerId, lastReward);
+        }
+    }
+
+    @Override
+    public int getStreak(UUID playerId) {
+        PlayerRecord record = cached(playerId);
+        return record != null ? record.getStreak() : delegate.getStreak(playerId);
+    }
+
+    @Override
+    public void setStreak(UUID playerId, int streak) {
+        if (!update(playerId, record -> record.withStreak(streak))) {
+            delegate.setStreak(playerId, streak);
+        }
+    }
+
+    @Override
+    public String getLastStreakDate(UUID playerId) {
+        PlayerRecord record = cached(playerId);
+        return record != null ? record.getLastStreakDate() : delegate.getLastStreakDate(playerId);
+    }
+
+    @Override
+    public void setLastStreakDate(UUID playerId, String lastStreakDate) {
+        if (!update(playerId, record -> record.withLastStreakDate(lastStreakDate))) {
+            delegate.setLastStreakDate(playerId, lastStreakDate);
+        }
+    }
+
+    @Override
+    public long getLastSync(UUID playerId) {
+        PlayerRecord record = cached(playerId);
+        return record != null ? record.getLastSync() : delegate.getLastSync(playerId);
+    }
+
+    @Override
+    public void setLastSync(UUID playerId, long lastSync) {
+        if (!update(playerId, record -> record.withLastSync(lastSync))) {
+            delegate.setLastSync(playerId, lastSync);
+        }
+    }
+
+    @Override
+    public PlayerRecord loadRecord(UUID playerId) {
+        PlayerRecord record = cached(playerId);
+        return record != null ? record : delegate.loadRecord(playerId);
+    }
+
+    @Override
+    public void saveRecord(PlayerRecord record) {
+        if (!replace(record)) {
+            delegate.saveRecord(record);
+        }
+    }
+
+    /**
+     * キャッシュされたレコードを置き換える
+     * プレイヤー名がnullの場合はキャッシュ済みの名前を維持します
+     * @return キャッシュされていない場合はfalse
+     */
+    private boolean replace(PlayerRecord record) {
+        return update(record.getPlayerId(), current -> record.getPlayerName() != null ? record : record.withPlayerName(current.getPlayerName()));
+    }
+
+    @Override
+    public ClaimResult claimDailyReward(UUID playerId, String resetDate, boolean updateStreak) {
+        // 受け取りの判定は元のストレージで行い（複数サーバー間で1回だけ成功させるため）、結果をキャッシュに反映する
+        return onFlushThread(() -> {
+            CachedPlayer entry = entries.get(playerId);
+            if (entry != null) {
+                flushEntry(entry);
+            }
+            ClaimResult result = delegate.claimDailyReward(playerId, resetDate, updateStreak);
+            if (entry != null && entries.get(playerId) == entry) {
+                if (result.isClaimed()) {
+                    entry.refresh(record -> {
+                        PlayerRecord claimed = record.withCumulative(0.0).withLastReward(resetDate);
+                        return updateStreak ? claimed.withStreak(result.getStreak()).withLastStreakDate(resetDate) : claimed;
+                    });
+                } else if (!result.isFailed()) {
+                    // 他のサーバーが先に受け取った場合は最新のデータを読み直す
+                    entry.reset(readRecord(playerId));
+                }
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public Map<UUID, PlayerRecord> loadRecords(Collection<UUID> playerIds) {
+        Map<UUID, PlayerRecord> records = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID playerId : playerIds) {
+            PlayerRecord record = cached(playerId);
+            if (record != null) {
+                records.put(playerId, record);
+            } else {
+                missing.add(playerId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            records.putAll(delegate.loadRecords(missing));
+        }
+        return records;
+    }
+
+    @Override
+    public void saveRecords(Collection<PlayerRecord> records) {
+        List<PlayerRecord> uncached = new ArrayList<>();
+        for (PlayerRecord record : records) {
+            if (!replace(record)) {
+                uncached.add(record);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            delegate.saveRecords(uncached);
+        }
+    }
+
+    @Override
+    public boolean saveRecordsAndWait(Collection<PlayerRecord> records) {
+        List<PlayerRecord> uncached = new ArrayList<>();
+        for (PlayerRecord record : records) {
+            if (!replace(record)) {
+                uncached.add(record);
+            }
+        }
+        // キャッシュ中のプレイヤーは次の書き込みで保存される
+        return uncached.isEmpty() || delegate.saveRecordsAndWait(uncached);
+    }
+
+    @Override
+    public List<PlayerRecord> scanRecords(UUID after, int limit) {
+        // 未保存の変更を反映してから読み取る
+        return onFlushThread(() -> {
+            flushAll();
+            return delegate.scanRecords(after, limit);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAsync() {
+        return CompletableFuture.runAsync(this::flushAll, flushExecutor)
+                .thenCompose(ignored -> delegate.saveAsync());
+    }
+
+    @Override
+    public void close() {
+        if (flushExecutor == null) {
+            // 初期化に失敗した場合はキャッシュに書き込むデータがない
+            delegate.close();
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("ストレージキャッシュの書き込みスレッドが時間内に停止しませんでした");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 未保存の変更を呼び出し元のスレッドで書き込んでから閉じる
+        flushAll();
+        delegate.saveAsync().join();
+        entries.clear();
+        delegate.close();
+    }
+
+    @Override
+    public boolean syncPlayerData(UUID playerId) {
+        return onFlushThread(() -> {
+            CachedPlayer entry = entries.get(playerId);
+            // 未保存の変更を書き込んでから最新データを読み直す
+            if (entry != null && !flushEntry(entry)) {
+                // 書き込めなかった変更を失わないよう、読み直さずに次回の書き込みで再試行する
+                return true;
+            }
+            PlayerRecord record = delegate.loadRecord(playerId);
+            PlayerRecord loaded = record != null ? record : PlayerRecord.empty(playerId);
+            if (entry != null) {
+                entry.reset(loaded);
+            } else {
+                entries.put(playerId, new CachedPlayer(loaded));
+            }
+            return record != null;
+        });
+    }
+
+    @Override
+    public void invalidatePlayer(UUID playerId) {
+        onFlushThread(() -> {
+            // キャッシュされている場合のみ、未保存の変更を破棄して読み直す（未保存の累積時間の加算は引き継ぐ）
+            CachedPlayer entry = entries.get(playerId);
+            if (entry != null) {
+                entry.reload(readRecord(playerId));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void invalidateAll() {
+        onFlushThread(() -> {
+            Map<UUID, PlayerRecord> records = delegate.loadRecords(new ArrayList<>(entries.keySet()));
+            entries.forEach((id, entry) -> {
+                PlayerRecord record = records.get(id);
+                entry.reload(record != null ? record : PlayerRecord.empty(id));
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public boolean deletePlayerData(UUID playerId) {
+        return onFlushThread(() -> {
+            boolean deleted = delegate.deletePlayerData(playerId);
+            // 未保存の変更を破棄し、初期値に戻す
+            CachedPlayer entry = entries.get(playerId);
+            if (entry != null) {
+                entry.reset(PlayerRecord.empty(playerId));
+            }
+            return deleted;
+        });
+    }
+
+    @Override
+    public boolean deleteAllPlayerData() {
+        return onFlushThread(() -> {
+            boolean deleted = delegate.deleteAllPlayerData();
+            entries.forEach((id, entry) -> entry.reset(PlayerRecord.empty(id)));
+            return deleted;
+        });
+    }
+
+    @Override
+    public List<UUID> getAllPlayerUUIDs() {
+        return delegate.getAllPlayerUUIDs();
+    }
+
+    @Override
+    public List<StreakEntry> topStreaks(int limit) {
+        // 未保存のストリークを反映してから集計する
+        return onFlushThread(() -> {
+            flushAll();
+            return delegate.topStreaks(limit);
+        });
+    }
+
+    @Override
+    public boolean acquireLease(UUID playerId, String playerName) {
+        return delegate.acquireLease(playerId, playerName);
+    }
+
+    @Override
+    public void updatePlayerName(UUID playerId, String playerName) {
+        delegate.updatePlayerName(playerId, playerName);
+    }
+
+    /**
+     * 書き込みスレッド上で処理を実行し、完了を待つ
+     * 書き込みと削除・再読み込みの順序が入れ替わらないようにするために使用します。
+     */
+    private <T> T onFlushThread(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, flushExecutor).join();
+    }
+
+    private void flushAllQuietly() {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("キャッシュの書き込み中にエラーが発生しました: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 変更があった全プレイヤーのレコードを1回の一括書き込みで保存する
+     * 累積時間の加算は、リセット日付ごとに1回の一括加算で書き込む
+     */
+    private void flushAll() {
+        flush(entries.values());
+    }
+
+    /**
+     * 変更があったレコードを元のストレージに書き込む
+     * 前回の書き込み以降の複数回の変更は、1回の書き込みにまとめられます。
+     * @return 書き込みに成功した場合（変更がなかった場合を含む）true
+     */
+    private boolean flushEntry(CachedPlayer entry) {
+        return flush(Collections.singletonList(entry));
+    }
+
+    /**
+     * 指定したプレイヤーの未保存の変更を取り出して書き込む
+     * 書き込みに失敗した変更は未保存に戻し、次回の書き込みで再試行します。
+     * @return 全ての書き込みに成功した場合true
+     */
+    private boolean flush(Collection<CachedPlayer> targets) {
+        Map<CachedPlayer, PendingWrite> drained = new HashMap<>();
+        List<PlayerRecord> fullRecords = new ArrayList<>();
+        List<PlayerRecord> otherRecords = new ArrayList<>();
+        Map<String, Map<UUID, Double>> minutesByDate = new HashMap<>();
+        for (CachedPlayer entry : targets) {
+            PendingWrite pending = entry.drain();
+            if (pending == null) {
+                continue;
+            }
+            drained.put(entry, pending);
+            if (pending.record != null) {
+                (pending.includesCumulative ? fullRecords : otherRecords).add(pending.record);
+            }
+            if (pending.date != null) {
+                minutesByDate.computeIfAbsent(pending.date, date -> new HashMap<>()).put(pending.playerId, pending.minutes);
+            }
+        }
+        if (drained.isEmpty()) {
+            return true;
+        }
+
+        boolean fullSaved = fullRecords.isEmpty() || writeRecords(fullRecords, true);
+        boolean otherSaved = otherRecords.isEmpty() || writeRecords(otherRecords, false);
+        List<String> failedDates = new ArrayList<>();
+        for (Map.Entry<String, Map<UUID, Double>> entry : minutesByDate.entrySet()) {
+            if (!writeCumulatives(entry.getValue(), entry.getKey())) {
+                failedDates.add(entry.getKey());
+            }
+        }
+
+        int failed = 0;
+        for (Map.Entry<CachedPlayer, PendingWrite> entry : drained.entrySet()) {
+            PendingWrite pending = entry.getValue();
+            boolean recordFailed = pending.record != null && !(pending.includesCumulative ? fullSaved : otherSaved);
+            boolean minutesFailed = pending.date != null && failedDates.contains(pending.date);
+            if (recordFailed || minutesFailed) {
+                entry.getKey().restore(pending, recordFailed, minutesFailed);
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            plugin.getLogger().warning("キャッシュの書き込みに失敗しました。" + failed + " 人分の変更は次回の書き込みで再試行します");
+        }
+        return failed == 0;
+    }
+
+    /**
+     * @param includeCumulative falseの場合は累積時間を除いて保存する（累積時間は加算で書き込む）
+     */
+    private boolean writeRecords(List<PlayerRecord> records, boolean includeCumulative) {
+        try {
+            return includeCumulative ? delegate.saveRecordsAndWait(records) : delegate.saveRecordsExceptCumulativeAndWait(records);
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("キャッシュされたプレイヤーデータの書き込みに失敗しました: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean writeCumulatives(Map<UUID, Double> minutes, String resetDate) {
+        try {
+            return delegate.addCumulativesAndWait(minutes, resetDate);
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("キャッシュされた累積時間の加算に失敗しました: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * キャッシュされた1人分のプレイヤーデータ
+     */
+    private static final class CachedPlayer {
+        private PlayerRecord record;
+        private boolean dirty;
+        private double pendingMinutes; // 未保存の累積時間の加算
+        private String pendingDate; // 未保存の加算のリセット日付
+        private boolean cumulativeSet; // 累積時間が加算以外で変更された（レコード全体で上書きする）
+        private long session; // 参加ごとに増える番号（退出処理と再参加の判別用）
+
+        private CachedPlayer(PlayerRecord record) {
+            this.record = record;
+        }
+
+        private synchronized void startSession() {
+            session++;
+        }
+
+        private synchronized long getSession() {
+            return session;
+        }
+
+        /**
+         * 元のストレージから読み直したレコードに置き換え、未保存の変更を破棄する
+         * セッションは維持されます
+         */
+        private synchronized void reset(PlayerRecord record) {
+            this.record = record;
+            dirty = false;
+            cumulativeSet = false;
+            pendingMinutes = 0.0;
+            pendingDate = null;
+        }
+
+        /**
+         * 元のストレージから読み直したレコードに置き換え、累積時間の加算以外の未保存の変更を破棄する
+         * 未保存の加算は読み直したレコードに反映し、次回の書き込みで加算として保存する
+         */
+        private synchronized void reload(PlayerRecord record) {
+            double minutes = pendingMinutes;
+            String date = pendingDate;
+            reset(record);
+            if (date != null) {
+                addCumulative(minutes, date);
+            }
+        }
+
+        private synchronized PlayerRecord get() {
+            return record;
+        }
+
+        private synchronized void update(UnaryOperator<PlayerRecord> change) {
+            PlayerRecord updated = change.apply(record);
+            if (updated.getCumulative() != record.getCumulative() || !Objects.equals(updated.getCumulativeDate(), record.getCumulativeDate())) {
+                cumulativeSet = true;
+            }
+            record = updated;
+            dirty = true;
+        }
+
+        /**
+         * 元のストレージに書き込み済みの変更を反映する（書き込み対象にはしない）
+         */
+        private synchronized void refresh(UnaryOperator<PlayerRecord> change) {
+            record = change.apply(record);
+        }
+
+        /**
+         * 累積時間に加算し、未保存の加算として記録する
+         * リセット日付が変わった場合、前の日付の未保存の加算は不要になるため破棄する
+         * 累積時間より古いリセット日付の加算は、元のストレージと同様に無視する
+         */
+        private synchronized void addCumulative(double minutes, String resetDate) {
+            if (PlayerRecord.isOlderPeriod(resetDate, record.getCumulativeDate())) {
+                return;
+            }
+            record = record.withAddedCumulative(minutes, resetDate);
+            if (!resetDate.equals(pendingDate)) {
+                pendingMinutes = 0.0;
+                pendingDate = resetDate;
+            }
+            pendingMinutes += minutes;
+        }
+
+        /**
+         * 未保存の変更を取り出し、保存済みとして記録する
+         * 累積時間の加算は常に加算として取り出し、他の変更があるレコードは累積時間を除いて書き込む。
+         * 累積時間が加算以外で変更された場合のみ、レコード全体（加算を含む）で上書きする
+         * @return 未保存の変更、変更がない場合はnull
+         */
+        private synchronized PendingWrite drain() {
+            PendingWrite pending = null;
+            if (dirty && cumulativeSet) {
+                pending = new PendingWrite(record.getPlayerId(), record, true, 0.0, null);
+            } else if (dirty || pendingDate != null) {
+                pending = new PendingWrite(record.getPlayerId(), dirty ? record : null, false, pendingMinutes, pendingDate);
+            }
+            dirty = false;
+            cumulativeSet = false;
+            pendingMinutes = 0.0;
+            pendingDate = null;
+            return pending;
+        }
+
+        /**
+         * 書き込みに失敗した変更を未保存に戻す
+         * 取り出した後の変更とまとめて、次回の書き込みで保存されます
+         */
+        private synchronized void restore(PendingWrite pending, boolean recordFailed, boolean minutesFailed) {
+            if (recordFailed) {
+                // 現在のレコードは取り出した時点の変更を含んでいる
+                dirty = true;
+                cumulativeSet |= pending.includesCumulative;
+            }
+            if (minutesFailed && (pendingDate == null || pendingDate.equals(pending.date))) {
+                pendingMinutes += pending.minutes;
+                pendingDate = pending.date;
+            }
+            // 取り出した後にリセット日付が変わった場合、前の日付の加算は不要になるため破棄する
+        }
+    }
+
+    /**
+     * 書き込みのために取り出した1人分の未保存の変更
+     */
+    private static final class PendingWrite {
+        private final UUID playerId;
+        private final PlayerRecord record; // 加算以外の変更がある場合のレコード、加算のみの場合はnull
+        private final boolean includesCumulative; // レコードの累積時間で上書きする場合true
+        private final double minutes; // 累積時間の加算（date がnullの場合はなし）
+        private final String date;
+
+        private PendingWrite(UUID playerId, PlayerRecord record, boolean includesCumulative, double minutes, String date) {
+            this.playerId = playerId;
+            this.record = record;
+            this.includesCumulative = includesCumulative;
+            this.minutes = minutes;
+            this.date = date;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package me.kubota6646.loginbonus.storage;
+
+/**
+ * 1日1回の報酬の受け取り結果
+ */
+public final class ClaimResult {
+
+    /** 既に受け取り済み（他のサーバーや二重の呼び出しが先に受け取った場合を含む） */
+    public static final ClaimResult NOT_CLAIMED = new ClaimResult(false, 0, false);
+
+    /** ストレージのエラーにより受け取りを確定できなかった（受け取り済みかどうかは不明なため、再度受け取りを試みる） */
+    public static final ClaimResult FAILED = new ClaimResult(false, 0, true);
+
+    private final boolean claimed;
+    private final int streak;
+    private final boolean failed;
+
+    private ClaimResult(boolean claimed, int streak, boolean failed) {
+        this.claimed = claimed;
+        this.streak = streak;
+        this.failed = failed;
+    }
+
+    /**
+     * この呼び出しで受け取りに成功した結果
+     * @param streak 受け取り後のストリーク日数
+     */
+    public static ClaimResult claimed(int streak) {
+        return new ClaimResult(true, streak, false);
+    }
+
+    /**
+     * @return この呼び出しで受け取りに成功した場合true
+     */
+    public boolean isClaimed() {
+        return claimed;
+    }
+
+    /**
+     * @return ストレージのエラーにより受け取りを確定できなかった場合true
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * @return 受け取り後のストリーク日数（受け取れなかった場合は0）
+     */
+    public int getStreak() {
+        return streak;
+    }
+
+    @Override
+    public String toString() {
+        if (failed) {
+            return "ClaimResult{failed}";
+        }
+        return claimed ? "ClaimResult{claimed, streak=" + streak + "}" : "ClaimResult{not claimed}";
+    }
+}
@@ -0,0 +1,163 @@
+package me.kubota6646.loginbonus.storage;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * v2形式のテーブル（SQLite・MySQL）の列の値の変換
+ * <ul>
+ *   <li>UUID: 16バイトのバイナリ</li>
+ *   <li>リセット日付・ストリーク日: リセット日のエポック日数（1970-01-01 からの日数）</li>
+ *   <li>累積時間: 秒単位の整数</li>
+ * </ul>
+ * プレイヤーデータ（{@link PlayerRecord}）はv1と同じ形式（YYYY-MM-DD HH:mm形式の日付、分単位の累積時間）のまま扱い、
+ * データベースとの読み書き時にのみ変換します。
+ */
+public final class CompactColumns {
+
+    private static final DateTimeFormatter RESET_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /** 直前に解析した reset-time の設定値と結果（同じ設定値を毎回解析しないため） */
+    private static volatile ParsedResetTime lastResetTime = new ParsedResetTime("00:00", LocalTime.MIDNIGHT);
+
+    private CompactColumns() {
+    }
+
+    /**
+     * UUIDを16バイトのバイナリに変換
+     */
+    public static byte[] toBytes(UUID playerId) {
+        return ByteBuffer.allocate(16)
+                .putLong(playerId.getMostSignificantBits())
+                .putLong(playerId.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * 16バイトのバイナリをUUIDに変換
+     * @return 16バイトでない場合はnull
+     */
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != 16) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * UUIDを16バイトのバイナリのバイト順で比較
+     * データベースの主キー（BINARY(16)・BLOB）の並び順と一致します
+     */
+    public static int compareKeys(UUID a, UUID b) {
+        int compared = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return compared != 0 ? compared : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    /**
+     * リセット日付をエポック日数に変換
+     * @param date リセット日付（YYYY-MM-DD HH:mm形式またはYYYY-MM-DD形式）
+     * @return エポック日数、nullや解析できない場合はnull
+     */
+    public static Integer toDay(String date) {
+        if (date == null || date.length() < 10) {
+            return null;
+        }
+        try {
+            return (int) LocalDate.parse(date.substring(0, 10)).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * エポック日数をリセット日付に変換
+     * @param day エポック日数（nullの場合はnull）
+     * @param resetTime リセット時刻
+     * @return リセット日付（YYYY-MM-DD HH:mm形式）
+     */
+    public static String toResetDate(Integer day, LocalTime resetTime) {
+        return day != null ? LocalDate.ofEpochDay(day).atTime(resetTime).format(RESET_DATE_FORMAT) : null;
+    }
+
+    /**
+     * 分単位の累積時間を秒単位に変換
+     */
+    public static int toSeconds(double minutes) {
+        return (int) Math.round(minutes * 60.0);
+    }
+
+    /**
+     * 秒単位の累積時間を分単位に変換
+     */
+    public static double toMinutes(long seconds) {
+        return seconds / 60.0;
+    }
+
+    /**
+     * reset-time の設定値を解析
+     * @param resetTimeStr 設定値（HH:mm形式）
+     * @return リセット時刻、解析できない場合はnull
+     */
+    public static LocalTime parseResetTime(String resetTimeStr) {
+        String[] timeParts = resetTimeStr.split(":");
+        try {
+            int resetHour = Integer.parseInt(timeParts[0].trim());
+            int resetMinute = timeParts.length > 1 ? Integer.parseInt(timeParts[1].trim()) : 0;
+            return LocalTime.of(resetHour, resetMinute);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * reset-time の設定値からリセット時刻を取得（解析できない場合は00:00）
+     * 読み込んだエポック日数をリセット日付に戻す際に、{@code ResetClock} と同じリセット時刻を使用するために使います
+     */
+    public static LocalTime resetTime(String resetTimeStr) {
+        ParsedResetTime parsed = lastResetTime;
+        if (!parsed.source.equals(resetTimeStr)) {
+            LocalTime resetTime = parseResetTime(resetTimeStr);
+            parsed = new ParsedResetTime(resetTimeStr, resetTime != null ? resetTime : LocalTime.MIDNIGHT);
+            lastResetTime = parsed;
+        }
+        return parsed.resetTime;
+    }
+
+    /**
+     * nullを許容する整数の列を読み取る
+     */
+    static Integer getNullableInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * nullを許容する整数をパラメータに設定する
+     */
+    static void setNullableInt(PreparedStatement pstmt, int index, Integer value) throws SQLException {
+        if (value != null) {
+            pstmt.setInt(index, value);
+        } else {
+            pstmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static final class ParsedResetTime {
+        private final String source;
+        private final LocalTime resetTime;
+
+        private ParsedResetTime(String source, LocalTime resetTime) {
+            this.source = source;
+            this.resetTime = resetTime;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package me.kubota6646.loginbonus.storage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * 上限付きのJDBCコネクションプール
+ * 最大接続数は待機中と使用中を合わせた物理接続の数の上限で、超える借り出しは connection-timeout まで待機します。
+ * 待機中の接続の検証はバックグラウンドで定期的に行い、クエリごとの検証は行いません。
+ * ただし検証間隔より長く待機していた接続は、借り出し時にも検証してから渡します。
+ * 使用中にエラーが発生した接続は {@link PooledConnection#markBroken()} で破損として記録すると、返却時に破棄されます。
+ * Bukkit版とBungeecord版の両方から使用するため、プラットフォームのAPIには依存しません。
+ */
+public class ConnectionPool {
+
+    /**
+     * 新しい物理接続を作成するファクトリ
+     */
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final String name;
+    private final Logger logger;
+    private final ConnectionFactory factory;
+    private final int maximumPoolSize;
+    private final int minimumIdle;
+    private final long connectionTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<IdleConnection> idle = new ConcurrentLinkedDeque<>(); // 先頭ほど最近使用または検証した接続
+    private final AtomicInteger openConnections = new AtomicInteger(); // 開いている物理接続の数（待機中と使用中の合計）
+    private ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String name, Logger logger, ConnectionFactory factory,
+                          int maximumPoolSize, int minimumIdle, long connectionTimeoutMillis, long validationIntervalMillis) {
+        this.name = name;
+        this.logger = logger;
+        this.factory = factory;
+        this.maximumPoolSize = Math.max(1, maximumPoolSize);
+        this.minimumIdle = Math.max(0, Math.min(minimumIdle, this.maximumPoolSize));
+        this.connectionTimeoutMillis = Math.max(250L, connectionTimeoutMillis);
+        this.validationIntervalMillis = Math.max(1000L, validationIntervalMillis);
+        this.permits = new Semaphore(this.maximumPoolSize, true);
+    }
+
+    /**
+     * 最小待機接続数まで接続を作成し、バックグラウンドの検証を開始する
+     * @throws SQLException 最初の接続の作成に失敗した場合
+     */
+    public void start() throws SQLException {
+        // 最初の1本は呼び出し元に失敗を伝えるため同期的に作成する
+        idle.offerFirst(new IdleConnection(openConnection()));
+        fillMinimumIdle();
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-Housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, validationIntervalMillis, validationIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 接続を借り出す
+     * 使用後は必ず {@link PooledConnection#close()} で返却してください（try-with-resources推奨）
+     * @return 借り出した接続
+     * @throws SQLException タイムアウトした場合、またはプールが閉じられている場合
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException(name + " は既に閉じられています");
+        }
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException(name + " から接続を取得できませんでした（" + connectionTimeoutMillis + "ms でタイムアウト）");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(name + " の接続待機中に割り込みが発生しました", e);
+        }
+        try {
+            long deadline = System.currentTimeMillis() + connectionTimeoutMillis;
+            Connection connection;
+            while ((connection = takeIdle()) == null && (connection = openConnection()) == null) {
+                // 上限まで接続が開いている場合は、検証中や返却処理中の接続が待機中に戻るのを待つ
+                if (closed || System.currentTimeMillis() >= deadline) {
+                    throw new SQLException(name + " から接続を取得できませんでした（" + connectionTimeoutMillis + "ms でタイムアウト）");
+                }
+                try {
+                    Thread.sleep(10L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException(name + " の接続待機中に割り込みが発生しました", e);
+                }
+            }
+            return new PooledConnection(this, connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 待機中の接続を取り出す
+     * 検証間隔より長く待機していた接続は、バックグラウンドの検証を待たずにこの場で検証し、無効であれば破棄して次の接続を試す
+     * @return 使用できる接続、待機中の接続がない場合はnull
+     */
+    private Connection takeIdle() {
+        IdleConnection candidate;
+        Connection usable = null;
+        int discarded = 0;
+        while (usable == null && (candidate = idle.pollFirst()) != null) {
+            if (isUsable(candidate)) {
+                usable = candidate.connection;
+            } else {
+                discard(candidate.connection);
+                discarded++;
+            }
+        }
+        if (discarded > 0) {
+            logger.warning(name + ": 無効な接続を " + discarded + " 本破棄しました");
+        }
+        return usable;
+    }
+
+    /**
+     * 最大接続数に達していなければ新しい物理接続を開く
+     * @return 開いた接続、最大接続数に達している場合はnull
+     */
+    private Connection openConnection() throws SQLException {
+        int current;
+        do {
+            current = openConnections.get();
+            if (current >= maximumPoolSize) {
+                return null;
+            }
+        } while (!openConnections.compareAndSet(current, current + 1));
+        try {
+            return factory.create();
+        } catch (SQLException | RuntimeException e) {
+            openConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * プールの物理接続を閉じ、開いている接続の数から除く
+     */
+    private void discard(Connection connection) {
+        closeQuietly(connection);
+        openConnections.decrementAndGet();
+    }
+
+    private boolean isUsable(IdleConnection candidate) {
+        try {
+            if (candidate.connection.isClosed()) {
+                return false;
+            }
+            // 検証間隔内に使用または検証した接続はそのまま使う
+            return System.currentTimeMillis() - candidate.checkedAt < validationIntervalMillis || candidate.connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void release(Connection connection, boolean broken) {
+        try {
+            if (broken || closed || connection.isClosed()) {
+                discard(connection);
+            } else {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                idle.offerFirst(new IdleConnection(connection));
+            }
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 待機中の接続を検証し、無効な接続を破棄して最小待機接続数を維持する
+     * 借り出しを妨げないよう、最も長く待機している接続から1本ずつ取り出して検証し、すぐに戻します。
+     * 検証間隔内に使用または検証した接続に達した時点で終了します。
+     */
+    private void housekeep() {
+        int discarded = 0;
+        int remaining = idle.size();
+        IdleConnection waiting;
+        while (remaining-- > 0 && !closed && (waiting = idle.pollLast()) != null) {
+            if (System.currentTimeMillis() - waiting.checkedAt < validationIntervalMillis) {
+                // これより先頭の接続はさらに最近使用されている
+                idle.offerLast(waiting);
+                break;
+            }
+            boolean valid;
+            try {
+                valid = !waiting.connection.isClosed() && waiting.connection.isValid(2);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (valid && !closed) {
+                idle.offerFirst(new IdleConnection(waiting.connection));
+            } else {
+                discard(waiting.connection);
+                discarded++;
+            }
+        }
+        if (discarded > 0) {
+            logger.warning(name + ": 無効な接続を " + discarded + " 本破棄しました。再接続します...");
+        }
+        fillMinimumIdle();
+    }
+
+    private void fillMinimumIdle() {
+        while (!closed && idle.size() < minimumIdle) {
+            try {
+                Connection connection = openConnection();
+                if (connection == null) {
+                    // 最大接続数に達している
+                    return;
+                }
+                idle.offerFirst(new IdleConnection(connection));
+            } catch (SQLException e) {
+                logger.warning(name + ": 待機接続の作成に失敗しました: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * プールを閉じ、待機中の接続をすべて閉じる
+     * 借り出し中の接続は返却時に閉じられます
+     */
+    public void close() {
+        closed = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        IdleConnection waiting;
+        while ((waiting = idle.pollFirst()) != null) {
+            discard(waiting.connection);
+        }
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // 既に切断されている接続は無視
+        }
+    }
+
+    /**
+     * 待機中の接続と、最後に使用または検証した時刻
+     */
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long checkedAt;
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+            this.checkedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * プールから借り出した接続
+     * close() で物理接続を閉じずにプールへ返却します。
+     */
+    public static final class PooledConnection implements AutoCloseable {
+
+        private final ConnectionPool pool;
+        private final Connection connection;
+        private boolean released;
+        private boolean broken;
+
+        private PooledConnection(ConnectionPool pool, Connection connection) {
+            this.pool = pool;
+            this.connection = connection;
+        }
+
+        public Connection get() {
+            return connection;
+        }
+
+        /**
+         * 接続を破損として記録する（SQLExceptionの発生時に呼び出し）
+         * 返却時にプールへ戻さずに閉じ、次の借り出しでは新しい接続を使用します
+         */
+        public void markBroken() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            pool.release(connection, broken);
+        }
+    }
+}
@@ -1,22 +1,71 @@
 package me.kubota6646.loginbonus.storage;
 
+import me.kubota6646.loginbonus.storage.ConnectionPool.PooledConnection;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.sql.*;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MySqlStorage implements StorageInterface {
     
+    private static final String RECORD_COLUMNS = "player_name, cumulative_seconds, cumulative_day, last_reward_day, streak, last_streak_day, last_sync";
+    /**
+     * v1形式の行をv2形式に変換する列（RECORD_COLUMNS の前に uuid を加えた順）
+     * 日付は先頭10文字をエポック日数に、累積時間は分から秒に変換します（解析できない日付はNULL）
+     */
+    private static final String LEGACY_COLUMNS = "UNHEX(REPLACE(uuid, '-', '')), player_name, COALESCE(ROUND(cumulative * 60), 0), " +
+            "DATEDIFF(LEFT(cumulative_date, 10), '1970-01-01'), DATEDIFF(LEFT(last_reward, 10), '1970-01-01'), COALESCE(streak, 1), " +
+            "DATEDIFF(LEFT(last_streak_date, 10), '1970-01-01'), COALESCE(last_sync, 0)";
+    /** v1形式のテーブルから1回に移行する行数 */
+    private static final int LEGACY_CHUNK_SIZE = 1000;
+    /** プレイヤー名の移行で1回に読み込み・更新する行数 */
+    private static final int NAME_CHUNK_SIZE = 1000;
+    /** v1形式のテーブルの行の移行（起動後に別スレッドで行い、完了時に記録する） */
+    private static final int MIGRATION_LEGACY_ROWS = 4;
+    private static final String MIGRATION_LEGACY_ROWS_DESCRIPTION = "v1形式のテーブルの行をv2形式のテーブルへ移行";
+    /** 他のサーバーのスキーマ移行の完了を待つ最大秒数 */
+    private static final int SCHEMA_LOCK_TIMEOUT_SECONDS = 60;
+    /** 更新時に他のサーバーが保持中のリース（負の last_sync）を上書きしない */
+    private static final String KEEP_LEASE = "last_sync = IF(last_sync < 0, last_sync, ?)";
+    /** 一括処理で1回に送信する最大件数 */
+    private static final int BATCH_SIZE = 500;
+    
     private final JavaPlugin plugin;
-    private Connection connection;
+    private ConnectionPool pool;
     private final String host;
     private final int port;
     private final String database;
     private final String tableName;
+    /** 移行中のv1形式のテーブル（存在する間は、未移行の行を使用時に個別に移行する） */
+    private final String legacyTable;
+    /** 移行が完了したv1形式のテーブル（バックアップとして残す） */
+    private final String legacyBackupTable;
     private final String username;
     private final String password;
+    private final int maximumPoolSize;
+    private final int minimumIdle;
+    private final long connectionTimeout;
+    private final long validationInterval;
+    private final StatementRegistry statements = new StatementRegistry();
+    private final SchemaMigrator migrator;
+    private final long handoffMaxWait;
+    private final long handoffPollInterval;
+    /** このサーバーが保持中のリース（UUID → 書き込んだ負の last_sync） */
+    private final Map<UUID, Long> leases = new ConcurrentHashMap<>();
+    /** v1形式のテーブルからの移行中か */
+    private volatile boolean migrating;
     
     public MySqlStorage(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -30,6 +79,12 @@ public class MySqlStorage implements StorageInterface {
             this.tableName = "player_data";
             this.username = "root";
             this.password = "password";
+            this.maximumPoolSize = 10;
+            this.minimumIdle = 2;
+            this.connectionTimeout = 30000L;
+            this.validationInterval = 30000L;
+            this.handoffMaxWait = 3000L;
+            this.handoffPollInterval = 50L;
         } else {
             this.host = mysqlConfig.getString("host", "localhost");
             this.port = mysqlConfig.getInt("port", 3306);
@@ -44,96 +99,373 @@ public class MySqlStorage implements StorageInterface {
             }
             this.username = mysqlConfig.getString("username", "root");
             this.password = mysqlConfig.getString("password", "password");
+            this.maximumPoolSize = mysqlConfig.getInt("connection-pool.maximum-pool-size", 10);
+            this.minimumIdle = mysqlConfig.getInt("connection-pool.minimum-idle", 2);
+            this.connectionTimeout = mysqlConfig.getLong("connection-pool.connection-timeout", 30000L);
+            this.validationInterval = mysqlConfig.getLong("connection-pool.validation-interval", 30000L);
+            this.handoffMaxWait = Math.max(0L, mysqlConfig.getLong("handoff.max-wait", 3000L));
+            this.handoffPollInterval = Math.max(10L, mysqlConfig.getLong("handoff.poll-interval", 50L));
         }
+        this.legacyTable = tableName + "_v1";
+        this.legacyBackupTable = tableName + "_v1_backup";
+        this.migrator = createMigrator();
+    }
+    
+    /**
+     * 繰り返し実行するSQLを登録する
+     * 各接続で最初の実行時に1回だけ準備され、以降は再利用されます
+     * @param inserted 接続先のサーバーに合わせた、挿入しようとした値の参照方法
+     */
+    private static void registerStatements(StatementRegistry statements, String tableName, String legacyTable, InsertedValues inserted) {
+        String copyLegacy = "INSERT IGNORE INTO " + tableName + " (uuid, " + RECORD_COLUMNS + ") SELECT " + LEGACY_COLUMNS +
+                " FROM " + legacyTable + " WHERE CHAR_LENGTH(uuid) = 36 AND ";
+        statements
+                .register("getCumulative", "SELECT cumulative_seconds FROM " + tableName + " WHERE uuid = ?")
+                .register("setCumulative", "INSERT INTO " + tableName + " (uuid, cumulative_seconds, last_sync) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE cumulative_seconds = ?, " + KEEP_LEASE)
+                // 保存済みの累積時間が同じリセット日（または集計日が未記録）の場合は加算し、より新しいリセット日なら置き換える
+                // 保存済みより古いリセット日の加算（遅れて届いた前日分など）は無視する
+                // MySQLの代入は左から順に行われるため、cumulative_seconds は更新前の cumulative_day で判定される
+                .register("addCumulative", "INSERT INTO " + tableName + " (uuid, cumulative_seconds, cumulative_day, last_sync) VALUES (?, ?, ?, ?)" + inserted.alias() + " " +
+                        "ON DUPLICATE KEY UPDATE cumulative_seconds = IF(cumulative_day IS NULL OR " + inserted.of("cumulative_day") + " IS NULL OR cumulative_day = " + inserted.of("cumulative_day") + ", " +
+                        "cumulative_seconds + " + inserted.of("cumulative_seconds") + ", IF(" + inserted.of("cumulative_day") + " > cumulative_day, " + inserted.of("cumulative_seconds") + ", cumulative_seconds)), " +
+                        "cumulative_day = IF(cumulative_day IS NULL OR " + inserted.of("cumulative_day") + " > cumulative_day, " + inserted.of("cumulative_day") + ", cumulative_day), " +
+                        "last_sync = IF(last_sync < 0, last_sync, " + inserted.of("last_sync") + ")")
+                .register("getLastReward", "SELECT last_reward_day FROM " + tableName + " WHERE uuid = ?")
+                .register("setLastReward", "INSERT INTO " + tableName + " (uuid, last_reward_day, last_sync) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE last_reward_day = ?, " + KEEP_LEASE)
+                .register("getStreak", "SELECT streak FROM " + tableName + " WHERE uuid = ?")
+                .register("setStreak", "INSERT INTO " + tableName + " (uuid, streak, last_sync) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE streak = ?, " + KEEP_LEASE)
+                .register("getLastStreakDate", "SELECT last_streak_day FROM " + tableName + " WHERE uuid = ?")
+                .register("setLastStreakDate", "INSERT INTO " + tableName + " (uuid, last_streak_day, last_sync) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE last_streak_day = ?, " + KEEP_LEASE)
+                .register("loadRecord", "SELECT " + RECORD_COLUMNS + " FROM " + tableName + " WHERE uuid = ?")
+                .register("upsertRecord", upsertRecordSql(tableName, inserted))
+                .register("upsertRecordExceptCumulative", upsertRecordExceptCumulativeSql(tableName, inserted))
+                .register("getLastSync", "SELECT last_sync FROM " + tableName + " WHERE uuid = ?")
+                .register("setLastSync", "INSERT INTO " + tableName + " (uuid, last_sync) VALUES (?, ?) " +
+                        "ON DUPLICATE KEY UPDATE last_sync = ?")
+                // リースの取得と同じ書き込みでプレイヤー名も更新する
+                .register("acquireLease", "INSERT INTO " + tableName + " (uuid, player_name, last_sync) VALUES (?, ?, ?)" + inserted.alias() + " " +
+                        "ON DUPLICATE KEY UPDATE player_name = COALESCE(" + inserted.of("player_name") + ", player_name), last_sync = " + inserted.of("last_sync"))
+                .register("releaseLease", "UPDATE " + tableName + " SET last_sync = ? WHERE uuid = ? AND last_sync = ?")
+                // 受け取り済みでない場合のみ更新し、更新後のストリークを LAST_INSERT_ID() に記録する
+                // MySQLの UPDATE は左から順に代入するため、streak は last_streak_day を更新する前の値で計算される
+                .register("claimReward", "UPDATE " + tableName + " SET " +
+                        "streak = LAST_INSERT_ID(IF(?, IF(last_streak_day = ? - 1, streak + 1, 1), streak)), " +
+                        "last_streak_day = IFNULL(?, last_streak_day), cumulative_seconds = 0, last_reward_day = ? " +
+                        "WHERE uuid = ? AND (last_reward_day IS NULL OR last_reward_day <> ?)")
+                .register("claimedStreak", "SELECT LAST_INSERT_ID()")
+                .register("claimRewardInsert", "INSERT IGNORE INTO " + tableName + " (uuid, cumulative_seconds, last_reward_day, streak, last_streak_day, last_sync) " +
+                        "VALUES (?, 0, ?, 1, ?, ?)")
+                .register("syncPlayerData", "SELECT 1 FROM " + tableName + " WHERE uuid = ?")
+                .register("deletePlayerData", "DELETE FROM " + tableName + " WHERE uuid = ?")
+                .register("topStreaks", "SELECT uuid, player_name, streak FROM " + tableName +
+                        " WHERE streak > 0 ORDER BY streak DESC LIMIT ?")
+                .register("updatePlayerName", "INSERT INTO " + tableName + " (uuid, player_name, cumulative_seconds, streak, last_sync) VALUES (?, ?, ?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE player_name = ?, " + KEEP_LEASE)
+                // 名前が未設定の行のみを主キーの順に走査し、名前が未設定のままの行にのみ書き込む
+                .register("missingNames", "SELECT uuid FROM " + tableName +
+                        " WHERE (player_name IS NULL OR player_name = '') ORDER BY uuid LIMIT ?")
+                .register("missingNamesAfter", "SELECT uuid FROM " + tableName +
+                        " WHERE (player_name IS NULL OR player_name = '') AND uuid > ? ORDER BY uuid LIMIT ?")
+                .register("backfillPlayerName", "UPDATE " + tableName + " SET player_name = ? " +
+                        "WHERE uuid = ? AND (player_name IS NULL OR player_name = '')")
+                .register("scanRecords", "SELECT uuid, " + RECORD_COLUMNS + " FROM " + tableName + " ORDER BY uuid LIMIT ?")
+                .register("scanRecordsAfter", "SELECT uuid, " + RECORD_COLUMNS + " FROM " + tableName + " WHERE uuid > ? ORDER BY uuid LIMIT ?")
+                // v1形式のテーブルからの移行（既に移行済みの行は INSERT IGNORE により上書きしない）
+                .register("copyLegacyRow", copyLegacy + "uuid = ?")
+                .register("copyLegacyRange", copyLegacy + "uuid > ? AND uuid <= ?")
+                .register("copyLegacyTail", copyLegacy + "uuid > ?")
+                .register("legacyChunkEnd", "SELECT uuid FROM " + legacyTable + " WHERE uuid > ? ORDER BY uuid LIMIT 1 OFFSET ?")
+                .register("deleteLegacyRow", "DELETE FROM " + legacyTable + " WHERE uuid = ?");
     }
     
     @Override
     public void initialize() {
         try {
             // MySQL接続URLを構築
-            String url = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true",
+            String url = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true" +
+                    "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048",
                     host, port, database);
             
-            // 接続を確立
-            connection = DriverManager.getConnection(url, username, password);
+            // コネクションプールを作成
+            pool = new ConnectionPool("LoginBonus-MySQL", plugin.getLogger(),
+                    () -> DriverManager.getConnection(url, username, password),
+                    maximumPoolSize, minimumIdle, connectionTimeout, validationInterval);
+            pool.start();
             
-            // テーブルを作成
-            String createTable = "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
-                    "uuid VARCHAR(36) PRIMARY KEY," +
-                    "player_name VARCHAR(16)," +
-                    "cumulative DOUBLE DEFAULT 0.0," +
-                    "last_reward VARCHAR(20)," +
-                    "streak INT DEFAULT 1," +
-                    "last_streak_date VARCHAR(20)," +
-                    "last_sync BIGINT DEFAULT 0," +
-                    "INDEX idx_last_sync (last_sync)" +
-                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;";
+            // 未適用のスキーマ移行を適用（適用済みであればテーブルは変更しない）
+            try (PooledConnection pooled = pool.borrow()) {
+                registerStatements(statements, tableName, legacyTable, InsertedValues.detect(pooled.get()));
+                Set<Integer> applied = migrateSchema(pooled.get());
+                migrating = !applied.contains(MIGRATION_LEGACY_ROWS);
+            }
+            if (migrating) {
+                startLegacyMigration();
+            }
             
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute(createTable);
-                
-                // 既存のテーブルのカラムサイズを更新（VARCHAR(10) → VARCHAR(20)）
-                try {
-                    stmt.execute("ALTER TABLE " + tableName + " MODIFY COLUMN last_reward VARCHAR(20)");
-                    stmt.execute("ALTER TABLE " + tableName + " MODIFY COLUMN last_streak_date VARCHAR(20)");
-                    plugin.getLogger().info("MySQLテーブルのカラムサイズを更新しました");
-                } catch (SQLException e) {
-                    // カラムがすでに正しいサイズか、テーブルが新規作成された場合は無視
-                    plugin.getLogger().fine("カラムサイズの更新をスキップしました: " + e.getMessage());
-                }
-                
-                // player_name カラムを追加（v1.5.0で追加）
-                // カラムの存在確認をしてから追加
-                try {
-                    DatabaseMetaData metaData = connection.getMetaData();
-                    try (ResultSet columns = metaData.getColumns(null, null, tableName, "player_name")) {
-                        if (!columns.next()) {
-                            // カラムが存在しない場合のみ追加
-                            stmt.execute("ALTER TABLE " + tableName + " ADD COLUMN player_name VARCHAR(16) AFTER uuid");
-                            plugin.getLogger().info("MySQLテーブルに player_name カラムを追加しました");
+            plugin.getLogger().info("MySQLデータベースに接続しました（最大接続数: " + pool.getMaximumPoolSize() + "）");
+        } catch (SQLException e) {
+            plugin.getLogger().severe("MySQLデータベースの初期化に失敗しました: " + e.getMessage());
+            plugin.getLogger().severe("データベースの接続情報とデータベースが存在することを確認してください。");
+            plugin.getLogger().severe("スタックトレース: " + java.util.Arrays.toString(e.getStackTrace()));
+            // 作成途中のプールを閉じ、使用できない状態のまま使われないよう呼び出し元に失敗を伝える
+            close();
+            throw new IllegalStateException("MySQLデータベースの初期化に失敗しました: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * スキーマ移行を定義する
+     * 一度公開した移行の内容は変更せず、変更が必要な場合は新しいバージョンを追加すること
+     */
+    private SchemaMigrator createMigrator() {
+        return new SchemaMigrator(plugin.getLogger(), tableName + "_schema_version", false)
+                .add(1, "v1形式のテーブルに不足している列を追加", connection -> {
+                    if (isLegacyTable(connection, tableName)) {
+                        addLegacyColumns(connection);
+                    }
+                })
+                .add(2, "v1形式のテーブルの名前を " + legacyTable + " に変更", connection -> {
+                    // 行はv2形式のテーブルの作成後に別スレッドで移行する（v4）
+                    if (isLegacyTable(connection, tableName)) {
+                        try (Statement stmt = connection.createStatement()) {
+                            stmt.execute("RENAME TABLE " + tableName + " TO " + legacyTable);
                         }
                     }
+                })
+                .add(3, "v2形式のテーブルを作成", connection -> {
+                    // UUIDは16バイト、日付はエポック日数、累積時間は秒
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.execute("CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                                "uuid BINARY(16) NOT NULL PRIMARY KEY," +
+                                "player_name VARCHAR(16)," +
+                                "cumulative_seconds INT NOT NULL DEFAULT 0," +
+                                "cumulative_day INT," +
+                                "last_reward_day INT," +
+                                "streak INT NOT NULL DEFAULT 1," +
+                                "last_streak_day INT," +
+                                "last_sync BIGINT NOT NULL DEFAULT 0," +
+                                "INDEX idx_last_sync (last_sync)," +
+                                "INDEX idx_streak (streak)" +
+                                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+                    }
+                });
+    }
+    
+    /**
+     * スキーマ移行を適用する
+     * 複数のサーバーが同時に起動しても1つのサーバーだけが移行を行うよう、名前付きロックで直列化します
+     * @return 適用済みのバージョン
+     */
+    private Set<Integer> migrateSchema(Connection connection) throws SQLException {
+        String lockName = "loginbonus." + database + "." + tableName;
+        try (PreparedStatement lock = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            lock.setString(1, lockName);
+            lock.setInt(2, SCHEMA_LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = lock.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("他のサーバーのスキーマ移行が " + SCHEMA_LOCK_TIMEOUT_SECONDS + " 秒以内に完了しませんでした");
+                }
+            }
+        }
+        try {
+            return migrator.migrate(connection);
+        } finally {
+            try (PreparedStatement unlock = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                unlock.setString(1, lockName);
+                unlock.executeQuery().close();
+            }
+        }
+    }
+    
+    /**
+     * テーブルがv1形式（UUIDが文字列）かチェック
+     */
+    private static boolean isLegacyTable(Connection connection, String table) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, table, "uuid")) {
+            return columns.next() && columns.getString("TYPE_NAME").toUpperCase().contains("CHAR");
+        }
+    }
+    
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+    
+    /**
+     * v1形式のテーブルに後から追加された列が無ければ追加する（移行時に全ての列を読み取るため）
+     */
+    private void addLegacyColumns(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // player_name カラム（v1.5.0で追加）
+            if (!columnExists(connection, tableName, "player_name")) {
+                stmt.execute("ALTER TABLE " + tableName + " ADD COLUMN player_name VARCHAR(16) AFTER uuid");
+            }
+            // cumulative_date カラム（累積時間を加算方式で保存するために追加）
+            if (!columnExists(connection, tableName, "cumulative_date")) {
+                stmt.execute("ALTER TABLE " + tableName + " ADD COLUMN cumulative_date VARCHAR(20) AFTER cumulative");
+            }
+        }
+    }
+    
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            return columns.next();
+        }
+    }
+    
+    /**
+     * v1形式のテーブルの行をv2形式のテーブルへ一定件数ずつ移行する（専用スレッドで実行）
+     * 移行中もプラグインは通常どおり動作し、まだ移行されていない行は使用時に個別に移行されます。
+     * 途中で停止した場合も、次回の起動時に INSERT IGNORE により移行済みの行を飛ばして再開します。
+     */
+    private void startLegacyMigration() {
+        Thread thread = new Thread(this::migrateLegacyRows, "LoginBonus-SchemaMigration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void migrateLegacyRows() {
+        try (PooledConnection pooled = pool.borrow()) {
+            if (!tableExists(pooled.get(), legacyTable)) {
+                // v1形式のテーブルが無い（新規作成、または他のサーバーが移行を完了した）
+                migrator.markApplied(pooled.get(), MIGRATION_LEGACY_ROWS, MIGRATION_LEGACY_ROWS_DESCRIPTION, 0L);
+                migrating = false;
+                return;
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("v1形式のテーブルの確認に失敗しました: " + e.getMessage());
+            return;
+        }
+        plugin.getLogger().info(legacyTable + " からv2形式のテーブルへ行を移行しています（移行中も参加したプレイヤーのデータは個別に移行されます）");
+        long startedAt = System.currentTimeMillis();
+        long copied = 0;
+        String lastUuid = "";
+        try {
+            while (migrating) {
+                String chunkEnd;
+                try (PooledConnection pooled = pool.borrow()) {
+                    PreparedStatement end = statements.prepare(pooled.get(), "legacyChunkEnd");
+                    end.setString(1, lastUuid);
+                    end.setInt(2, LEGACY_CHUNK_SIZE - 1);
+                    try (ResultSet rs = end.executeQuery()) {
+                        chunkEnd = rs.next() ? rs.getString(1) : null;
+                    }
+                    PreparedStatement copy;
+                    if (chunkEnd != null) {
+                        copy = statements.prepare(pooled.get(), "copyLegacyRange");
+                        copy.setString(1, lastUuid);
+                        copy.setString(2, chunkEnd);
+                    } else {
+                        copy = statements.prepare(pooled.get(), "copyLegacyTail");
+                        copy.setString(1, lastUuid);
+                    }
+                    copied += copy.executeUpdate();
+                }
+                if (chunkEnd == null) {
+                    break;
+                }
+                lastUuid = chunkEnd;
+            }
+            if (!migrating) {
+                // 移行の完了前に停止した
+                return;
+            }
+            try (PooledConnection pooled = pool.borrow();
+                 Statement stmt = pooled.get().createStatement()) {
+                try {
+                    stmt.execute("RENAME TABLE " + legacyTable + " TO " + legacyBackupTable);
                 } catch (SQLException e) {
-                    plugin.getLogger().fine("player_name カラムの確認/追加に失敗しました: " + e.getMessage());
+                    // 他のサーバーが先に移行を完了した場合
+                    plugin.getLogger().fine("v1形式のテーブルの名前の変更をスキップしました: " + e.getMessage());
                 }
+                migrator.markApplied(pooled.get(), MIGRATION_LEGACY_ROWS, MIGRATION_LEGACY_ROWS_DESCRIPTION,
+                        System.currentTimeMillis() - startedAt);
             }
-            
-            plugin.getLogger().info("MySQLデータベースに接続しました");
+            migrating = false;
+            plugin.getLogger().info("v2形式のテーブルへの移行が完了しました（" + copied + " 件、" + (System.currentTimeMillis() - startedAt) + "ms）。" +
+                    "v1形式のテーブルは " + legacyBackupTable + " として残っています。動作を確認した後は削除してかまいません。");
         } catch (SQLException e) {
-            plugin.getLogger().severe("MySQLデータベースの初期化に失敗しました: " + e.getMessage());
-            plugin.getLogger().severe("データベースの接続情報とデータベースが存在することを確認してください。");
-            plugin.getLogger().severe("スタックトレース: " + java.util.Arrays.toString(e.getStackTrace()));
+            plugin.getLogger().severe("v2形式のテーブルへの移行に失敗しました（" + copied + " 件移行済み）: " + e.getMessage());
+            plugin.getLogger().severe("未移行の行は使用時に個別に移行され、次回の起動時に移行を再開します。");
         }
     }
     
-    private void reconnectIfNeeded() throws SQLException {
+    /**
+     * v1形式のテーブルからの移行中であれば、指定したプレイヤーの行を先に移行する
+     * 既に移行済みの行や、v1形式のテーブルに存在しないプレイヤーの場合は何もしません
+     */
+    private void copyLegacyRows(Connection connection, Collection<UUID> playerIds) throws SQLException {
+        if (!migrating || playerIds.isEmpty()) {
+            return;
+        }
         try {
-            if (connection == null || connection.isClosed() || !connection.isValid(1)) {
-                plugin.getLogger().warning("MySQL接続が切断されました。再接続を試みます...");
-                initialize();
-                // 再接続後も接続が無効な場合は例外をスロー
-                if (connection == null || connection.isClosed()) {
-                    throw new SQLException("MySQL再接続に失敗しました。接続がnullまたは閉じています。");
+            if (playerIds.size() == 1) {
+                PreparedStatement pstmt = statements.prepare(connection, "copyLegacyRow");
+                pstmt.setString(1, playerIds.iterator().next().toString());
+                pstmt.executeUpdate();
+                return;
+            }
+            List<UUID> ids = new ArrayList<>(playerIds);
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+                String sql = "INSERT IGNORE INTO " + tableName + " (uuid, " + RECORD_COLUMNS + ") SELECT " + LEGACY_COLUMNS +
+                        " FROM " + legacyTable + " WHERE uuid IN (" + placeholders(chunk.size()) + ")";
+                try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i).toString());
+                    }
+                    pstmt.executeUpdate();
                 }
-                plugin.getLogger().info("MySQL接続を再確立しました");
             }
         } catch (SQLException e) {
-            plugin.getLogger().severe("MySQL再接続に失敗しました: " + e.getMessage());
+            // 他のサーバーが移行を完了し、v1形式のテーブルが無くなった
+            if (!tableExists(connection, legacyTable)) {
+                migrating = false;
+                return;
+            }
             throw e;
         }
     }
     
-    @Override
-    public synchronized double getCumulative(UUID playerId) {
-        String sql = "SELECT cumulative FROM " + tableName + " WHERE uuid = ?";
+    /**
+     * プレイヤー1人分の処理に使用する接続を取得する（移行中は先にそのプレイヤーの行を移行する）
+     */
+    private PooledConnection borrow(UUID playerId) throws SQLException {
+        PooledConnection pooled = pool.borrow();
         try {
-            reconnectIfNeeded();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getDouble("cumulative");
-                    }
+            copyLegacyRows(pooled.get(), Collections.singletonList(playerId));
+        } catch (SQLException e) {
+            pooled.markBroken();
+            pooled.close();
+            throw e;
+        }
+        return pooled;
+    }
+    
+    /**
+     * 読み込んだエポック日数をリセット日付に戻す際のリセット時刻
+     */
+    private LocalTime resetTime() {
+        return CompactColumns.resetTime(plugin.getConfig().getString("reset-time", "00:00"));
+    }
+    
+    private static byte[] key(UUID playerId) {
+        return CompactColumns.toBytes(playerId);
+    }
+    
+    @Override
+    public double getCumulative(UUID playerId) {
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "getCumulative");
+            pstmt.setBytes(1, key(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return CompactColumns.toMinutes(rs.getLong("cumulative_seconds"));
                 }
             }
         } catch (SQLException e) {
@@ -143,36 +475,71 @@ public class MySqlStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized void setCumulative(UUID playerId, double cumulative) {
-        String sql = "INSERT INTO " + tableName + " (uuid, cumulative, last_sync) VALUES (?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE cumulative = ?, last_sync = ?";
-        try {
-            reconnectIfNeeded();
-            long currentTime = System.currentTimeMillis();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setDouble(2, cumulative);
-                pstmt.setLong(3, currentTime);
-                pstmt.setDouble(4, cumulative);
-                pstmt.setLong(5, currentTime);
-                pstmt.executeUpdate();
-            }
+    public void setCumulative(UUID playerId, double cumulative) {
+        long currentTime = System.currentTimeMillis();
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "setCumulative");
+            pstmt.setBytes(1, key(playerId));
+            pstmt.setInt(2, CompactColumns.toSeconds(cumulative));
+            pstmt.setLong(3, currentTime);
+            pstmt.setInt(4, CompactColumns.toSeconds(cumulative));
+            pstmt.setLong(5, currentTime);
+            pstmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().severe("累積時間の設定に失敗しました: " + e.getMessage());
         }
     }
     
     @Override
-    public synchronized String getLastReward(UUID playerId) {
-        String sql = "SELECT last_reward FROM " + tableName + " WHERE uuid = ?";
-        try {
-            reconnectIfNeeded();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getString("last_reward");
-                    }
+    public void addCumulative(UUID playerId, double minutes, String resetDate) {
+        addCumulatives(Collections.singletonMap(playerId, minutes), resetDate);
+    }
+    
+    @Override
+    public void addCumulatives(Map<UUID, Double> minutes, String resetDate) {
+        addCumulativesAndWait(minutes, resetDate);
+    }
+    
+    @Override
+    public boolean addCumulativesAndWait(Map<UUID, Double> minutes, String resetDate) {
+        if (minutes.isEmpty()) {
+            return true;
+        }
+        Integer resetDay = CompactColumns.toDay(resetDate);
+        try (PooledConnection pooled = pool.borrow()) {
+            copyLegacyRows(pooled.get(), minutes.keySet());
+            long now = System.currentTimeMillis();
+            // 加算は順序に依存しないため、他のサーバーと同時に書き込んでも失われない
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "addCumulative");
+            try {
+                for (Map.Entry<UUID, Double> entry : minutes.entrySet()) {
+                    pstmt.setBytes(1, key(entry.getKey()));
+                    pstmt.setInt(2, CompactColumns.toSeconds(entry.getValue()));
+                    CompactColumns.setNullableInt(pstmt, 3, resetDay);
+                    pstmt.setLong(4, now);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            } catch (SQLException e) {
+                pooled.markBroken();
+                pstmt.clearBatch();
+                throw e;
+            }
+            return true;
+        } catch (SQLException e) {
+            plugin.getLogger().severe("累積時間の加算に失敗しました: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    @Override
+    public String getLastReward(UUID playerId) {
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "getLastReward");
+            pstmt.setBytes(1, key(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return CompactColumns.toResetDate(CompactColumns.getNullableInt(rs, "last_reward_day"), resetTime());
                 }
             }
         } catch (SQLException e) {
@@ -182,36 +549,30 @@ public class MySqlStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized void setLastReward(UUID playerId, String lastReward) {
-        String sql = "INSERT INTO " + tableName + " (uuid, last_reward, last_sync) VALUES (?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE last_reward = ?, last_sync = ?";
-        try {
-            reconnectIfNeeded();
-            long currentTime = System.currentTimeMillis();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setString(2, lastReward);
-                pstmt.setLong(3, currentTime);
-                pstmt.setString(4, lastReward);
-                pstmt.setLong(5, currentTime);
-                pstmt.executeUpdate();
-            }
+    public void setLastReward(UUID playerId, String lastReward) {
+        long currentTime = System.currentTimeMillis();
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "setLastReward");
+            pstmt.setBytes(1, key(playerId));
+            Integer lastRewardDay = CompactColumns.toDay(lastReward);
+            CompactColumns.setNullableInt(pstmt, 2, lastRewardDay);
+            pstmt.setLong(3, currentTime);
+            CompactColumns.setNullableInt(pstmt, 4, lastRewardDay);
+            pstmt.setLong(5, currentTime);
+            pstmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().severe("最終報酬日の設定に失敗しました: " + e.getMessage());
         }
     }
     
     @Override
-    public synchronized int getStreak(UUID playerId) {
-        String sql = "SELECT streak FROM " + tableName + " WHERE uuid = ?";
-        try {
-            reconnectIfNeeded();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getInt("streak");
-                    }
+    public int getStreak(UUID playerId) {
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "getStreak");
+            pstmt.setBytes(1, key(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("streak");
                 }
             }
         } catch (SQLException e) {
@@ -221,36 +582,29 @@ public class MySqlStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized void setStreak(UUID playerId, int streak) {
-        String sql = "INSERT INTO " + tableName + " (uuid, streak, last_sync) VALUES (?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE streak = ?, last_sync = ?";
-        try {
-            reconnectIfNeeded();
-            long currentTime = System.currentTimeMillis();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setInt(2, streak);
-                pstmt.setLong(3, currentTime);
-                pstmt.setInt(4, streak);
-                pstmt.setLong(5, currentTime);
-                pstmt.executeUpdate();
-            }
+    public void setStreak(UUID playerId, int streak) {
+        long currentTime = System.currentTimeMillis();
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "setStreak");
+            pstmt.setBytes(1, key(playerId));
+            pstmt.setInt(2, streak);
+            pstmt.setLong(3, currentTime);
+            pstmt.setInt(4, streak);
+            pstmt.setLong(5, currentTime);
+            pstmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().severe("ストリークの設定に失敗しました: " + e.getMessage());
         }
     }
     
     @Override
-    public synchronized String getLastStreakDate(UUID playerId) {
-        String sql = "SELECT last_streak_date FROM " + tableName + " WHERE uuid = ?";
-        try {
-            reconnectIfNeeded();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getString("last_streak_date");
-                    }
+    public String getLastStreakDate(UUID playerId) {
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "getLastStreakDate");
+            pstmt.setBytes(1, key(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return CompactColumns.toResetDate(CompactColumns.getNullableInt(rs, "last_streak_day"), resetTime());
                 }
             }
         } catch (SQLException e) {
@@ -260,38 +614,334 @@ public class MySqlStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized void setLastStreakDate(UUID playerId, String lastStreakDate) {
-        String sql = "INSERT INTO " + tableName + " (uuid, last_streak_date, last_sync) VALUES (?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE last_streak_date = ?, last_sync = ?";
-        try {
-            reconnectIfNeeded();
-            long currentTime = System.currentTimeMillis();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setString(2, lastStreakDate);
-                pstmt.setLong(3, currentTime);
-                pstmt.setString(4, lastStreakDate);
-                pstmt.setLong(5, currentTime);
-                pstmt.executeUpdate();
-            }
+    public void setLastStreakDate(UUID playerId, String lastStreakDate) {
+        long currentTime = System.currentTimeMillis();
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "setLastStreakDate");
+            pstmt.setBytes(1, key(playerId));
+            Integer lastStreakDay = CompactColumns.toDay(lastStreakDate);
+            CompactColumns.setNullableInt(pstmt, 2, lastStreakDay);
+            pstmt.setLong(3, currentTime);
+            CompactColumns.setNullableInt(pstmt, 4, lastStreakDay);
+            pstmt.setLong(5, currentTime);
+            pstmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().severe("最終ストリーク日の設定に失敗しました: " + e.getMessage());
         }
     }
     
     @Override
-    public synchronized long getLastSync(UUID playerId) {
-        String sql = "SELECT last_sync FROM " + tableName + " WHERE uuid = ?";
-        try {
-            reconnectIfNeeded();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getLong("last_sync");
+    public PlayerRecord loadRecord(UUID playerId) {
+        LocalTime resetTime = resetTime();
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "loadRecord");
+            pstmt.setBytes(1, key(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readRecord(playerId, rs, resetTime);
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("プレイヤーデータの取得に失敗しました: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    @Override
+    public Map<UUID, PlayerRecord> loadRecords(Collection<UUID> playerIds) {
+        Map<UUID, PlayerRecord> records = new HashMap<>();
+        if (playerIds.isEmpty()) {
+            return records;
+        }
+        List<UUID> ids = new ArrayList<>(playerIds);
+        LocalTime resetTime = resetTime();
+        try (PooledConnection pooled = pool.borrow()) {
+            copyLegacyRows(pooled.get(), ids);
+            // IN句のプレースホルダー数を抑えるため、一定件数ごとに分割して取得
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+                String sql = "SELECT uuid, " + RECORD_COLUMNS + " FROM " + tableName +
+                        " WHERE uuid IN (" + placeholders(chunk.size()) + ")";
+                try (PreparedStatement pstmt = pooled.get().prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setBytes(i + 1, key(chunk.get(i)));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            UUID playerId = CompactColumns.fromBytes(rs.getBytes("uuid"));
+                            records.put(playerId, readRecord(playerId, rs, resetTime));
+                        }
                     }
                 }
             }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("プレイヤーデータの一括取得に失敗しました: " + e.getMessage());
+        }
+        return records;
+    }
+    
+    @Override
+    public List<PlayerRecord> scanRecords(UUID after, int limit) {
+        if (migrating) {
+            // v1形式のテーブルに残っている行も含めるため、UUIDの一覧から取得する
+            return StorageInterface.super.scanRecords(after, limit);
+        }
+        List<PlayerRecord> records = new ArrayList<>(limit);
+        LocalTime resetTime = resetTime();
+        try (PooledConnection pooled = pool.borrow()) {
+            // 主キーの順に読むため、続きの位置から索引を使って取得できる
+            PreparedStatement pstmt = statements.prepare(pooled.get(), after == null ? "scanRecords" : "scanRecordsAfter");
+            int index = 1;
+            if (after != null) {
+                pstmt.setBytes(index++, key(after));
+            }
+            pstmt.setInt(index, limit);
+            pstmt.setFetchSize(limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID playerId = CompactColumns.fromBytes(rs.getBytes("uuid"));
+                    if (playerId != null) {
+                        records.add(readRecord(playerId, rs, resetTime));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("プレイヤーデータの走査に失敗しました: " + e.getMessage());
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return records;
+    }
+    
+    /**
+     * 現在の行をプレイヤーデータとして読み取る
+     * @param resetTime リセット時刻（設定の読み取りを行ごとに繰り返さないよう、呼び出し元でクエリごとに1回解決する）
+     */
+    private PlayerRecord readRecord(UUID playerId, ResultSet rs, LocalTime resetTime) throws SQLException {
+        return new PlayerRecord(playerId,
+                rs.getString("player_name"),
+                CompactColumns.toMinutes(rs.getLong("cumulative_seconds")),
+                CompactColumns.toResetDate(CompactColumns.getNullableInt(rs, "cumulative_day"), resetTime),
+                CompactColumns.toResetDate(CompactColumns.getNullableInt(rs, "last_reward_day"), resetTime),
+                rs.getInt("streak"),
+                CompactColumns.toResetDate(CompactColumns.getNullableInt(rs, "last_streak_day"), resetTime),
+                Math.abs(rs.getLong("last_sync")));
+    }
+    
+    private static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            builder.append(i == 0 ? "?" : ",?");
+        }
+        return builder.toString();
+    }
+    
+    @Override
+    public void saveRecord(PlayerRecord record) {
+        try (PooledConnection pooled = borrow(record.getPlayerId())) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "upsertRecord");
+            bindRecord(pstmt, record, System.currentTimeMillis());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().severe("プレイヤーデータの保存に失敗しました: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public ClaimResult claimDailyReward(UUID playerId, String resetDate, boolean updateStreak) {
+        Integer resetDay = CompactColumns.toDay(resetDate);
+        Integer lastStreakDay = updateStreak ? resetDay : null;
+        try (PooledConnection pooled = borrow(playerId)) {
+            Connection connection = pooled.get();
+            // 条件付きUPDATEは行ロックで直列化されるため、同時に受け取れるのは1つのサーバーだけ
+            // ストリークの継続判定は最終ストリーク日と前日のエポック日数の比較で行う
+            PreparedStatement update = statements.prepare(connection, "claimReward");
+            update.setBoolean(1, updateStreak);
+            CompactColumns.setNullableInt(update, 2, resetDay);
+            CompactColumns.setNullableInt(update, 3, lastStreakDay);
+            CompactColumns.setNullableInt(update, 4, resetDay);
+            update.setBytes(5, key(playerId));
+            CompactColumns.setNullableInt(update, 6, resetDay);
+            if (update.executeUpdate() > 0) {
+                PreparedStatement select = statements.prepare(connection, "claimedStreak");
+                try (ResultSet rs = select.executeQuery()) {
+                    return ClaimResult.claimed(rs.next() ? rs.getInt(1) : 1);
+                }
+            }
+            // 行が存在しない場合のみ作成する（既に存在する場合は受け取り済み）
+            PreparedStatement insert = statements.prepare(connection, "claimRewardInsert");
+            insert.setBytes(1, key(playerId));
+            CompactColumns.setNullableInt(insert, 2, resetDay);
+            CompactColumns.setNullableInt(insert, 3, lastStreakDay);
+            insert.setLong(4, System.currentTimeMillis());
+            return insert.executeUpdate() > 0 ? ClaimResult.claimed(1) : ClaimResult.NOT_CLAIMED;
+        } catch (SQLException e) {
+            plugin.getLogger().severe("報酬の受け取り処理に失敗しました: " + e.getMessage());
+            return ClaimResult.FAILED;
+        }
+    }
+    
+    @Override
+    public void saveRecords(Collection<PlayerRecord> records) {
+        saveRecordsAndWait(records);
+    }
+    
+    @Override
+    public boolean saveRecordsAndWait(Collection<PlayerRecord> records) {
+        return upsertRecords(records, true);
+    }
+    
+    @Override
+    public boolean saveRecordsExceptCumulativeAndWait(Collection<PlayerRecord> records) {
+        return upsertRecords(records, false);
+    }
+    
+    /**
+     * 1つのトランザクション内でレコードをバッチ保存する
+     * @param includeCumulative falseの場合は保存済みの累積時間を変更しない
+     */
+    private boolean upsertRecords(Collection<PlayerRecord> records, boolean includeCumulative) {
+        if (records.isEmpty()) {
+            return true;
+        }
+        try (PooledConnection pooled = pool.borrow()) {
+            Connection connection = pooled.get();
+            List<UUID> ids = new ArrayList<>(records.size());
+            for (PlayerRecord record : records) {
+                ids.add(record.getPlayerId());
+            }
+            copyLegacyRows(connection, ids);
+            connection.setAutoCommit(false);
+            long now = System.currentTimeMillis();
+            // rewriteBatchedStatements により複数行のINSERTにまとめて送信される
+            PreparedStatement pstmt = statements.prepare(connection, includeCumulative ? "upsertRecord" : "upsertRecordExceptCumulative");
+            try {
+                int pending = 0;
+                for (PlayerRecord record : records) {
+                    if (includeCumulative) {
+                        bindRecord(pstmt, record, now);
+                    } else {
+                        bindRecordExceptCumulative(pstmt, record, now);
+                    }
+                    pstmt.addBatch();
+                    if (++pending >= BATCH_SIZE) {
+                        pstmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    pstmt.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                pooled.markBroken();
+                // 再利用する文に未送信のバッチが残らないようにする
+                pstmt.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            plugin.getLogger().severe("プレイヤーデータの一括保存に失敗しました（" + records.size() + " 件）: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private static String upsertRecordSql(String tableName, InsertedValues inserted) {
+        // player_name がnullの場合は既存の名前を維持する
+        return "INSERT INTO " + tableName + " (uuid, " + RECORD_COLUMNS + ") " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)" + inserted.alias() + " " +
+                "ON DUPLICATE KEY UPDATE player_name = COALESCE(" + inserted.of("player_name") + ", player_name), " +
+                "cumulative_seconds = " + inserted.of("cumulative_seconds") + ", cumulative_day = " + inserted.of("cumulative_day") + ", " +
+                "last_reward_day = " + inserted.of("last_reward_day") + ", streak = " + inserted.of("streak") + ", " +
+                "last_streak_day = " + inserted.of("last_streak_day") + ", last_sync = IF(last_sync < 0, last_sync, " + inserted.of("last_sync") + ")";
+    }
+    
+    private static String upsertRecordExceptCumulativeSql(String tableName, InsertedValues inserted) {
+        // 累積時間は加算で書き込むため、保存済みの値を維持する
+        return "INSERT INTO " + tableName + " (uuid, player_name, last_reward_day, streak, last_streak_day, last_sync) " +
+                "VALUES (?, ?, ?, ?, ?, ?)" + inserted.alias() + " " +
+                "ON DUPLICATE KEY UPDATE player_name = COALESCE(" + inserted.of("player_name") + ", player_name), " +
+                "last_reward_day = " + inserted.of("last_reward_day") + ", streak = " + inserted.of("streak") + ", " +
+                "last_streak_day = " + inserted.of("last_streak_day") + ", last_sync = IF(last_sync < 0, last_sync, " + inserted.of("last_sync") + ")";
+    }
+    
+    /**
+     * ON DUPLICATE KEY UPDATE で、挿入しようとした値を参照する構文
+     * VALUES(列名) はMySQL 8.0.20で非推奨になったため、対応するサーバーでは行エイリアス（INSERT ... AS new）を使用します。
+     * 行エイリアスに対応しないMariaDBとMySQL 8.0.19未満では、従来の VALUES(列名) を使用します。
+     */
+    private static final class InsertedValues {
+        private final boolean rowAlias;
+        
+        private InsertedValues(boolean rowAlias) {
+            this.rowAlias = rowAlias;
+        }
+        
+        /**
+         * 接続先のサーバーが行エイリアスに対応しているか判定する
+         */
+        private static InsertedValues detect(Connection connection) throws SQLException {
+            DatabaseMetaData meta = connection.getMetaData();
+            String version = meta.getDatabaseProductVersion();
+            if (version == null || version.toLowerCase(Locale.ROOT).contains("mariadb")) {
+                return new InsertedValues(false);
+            }
+            int major = meta.getDatabaseMajorVersion();
+            int minor = meta.getDatabaseMinorVersion();
+            if (major != 8 || minor != 0) {
+                return new InsertedValues(major > 8);
+            }
+            // 8.0.x はパッチ番号で判定する（例: 8.0.36）
+            String[] parts = version.split("[.-]");
+            try {
+                return new InsertedValues(parts.length > 2 && Integer.parseInt(parts[2]) >= 19);
+            } catch (NumberFormatException e) {
+                return new InsertedValues(false);
+            }
+        }
+        
+        String alias() {
+            return rowAlias ? " AS new" : "";
+        }
+        
+        String of(String column) {
+            return rowAlias ? "new." + column : "VALUES(" + column + ")";
+        }
+    }
+    
+    private static void bindRecord(PreparedStatement pstmt, PlayerRecord record, long lastSync) throws SQLException {
+        pstmt.setBytes(1, key(record.getPlayerId()));
+        pstmt.setString(2, record.getPlayerName());
+        pstmt.setInt(3, CompactColumns.toSeconds(record.getCumulative()));
+        CompactColumns.setNullableInt(pstmt, 4, CompactColumns.toDay(record.getCumulativeDate()));
+        CompactColumns.setNullableInt(pstmt, 5, CompactColumns.toDay(record.getLastReward()));
+        pstmt.setInt(6, record.getStreak());
+        CompactColumns.setNullableInt(pstmt, 7, CompactColumns.toDay(record.getLastStreakDate()));
+        pstmt.setLong(8, lastSync);
+    }
+    
+    private static void bindRecordExceptCumulative(PreparedStatement pstmt, PlayerRecord record, long lastSync) throws SQLException {
+        pstmt.setBytes(1, key(record.getPlayerId()));
+        pstmt.setString(2, record.getPlayerName());
+        CompactColumns.setNullableInt(pstmt, 3, CompactColumns.toDay(record.getLastReward()));
+        pstmt.setInt(4, record.getStreak());
+        CompactColumns.setNullableInt(pstmt, 5, CompactColumns.toDay(record.getLastStreakDate()));
+        pstmt.setLong(6, lastSync);
+    }
+    
+    @Override
+    public long getLastSync(UUID playerId) {
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "getLastSync");
+            pstmt.setBytes(1, key(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    // リース保持中は負の値で保存されている
+                    return Math.abs(rs.getLong("last_sync"));
+                }
+            }
         } catch (SQLException e) {
             plugin.getLogger().severe("最終同期日時の取得に失敗しました: " + e.getMessage());
         }
@@ -299,39 +949,118 @@ public class MySqlStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized void setLastSync(UUID playerId, long lastSync) {
-        String sql = "INSERT INTO " + tableName + " (uuid, last_sync) VALUES (?, ?) " +
-                "ON DUPLICATE KEY UPDATE last_sync = ?";
-        try {
-            reconnectIfNeeded();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setLong(2, lastSync);
-                pstmt.setLong(3, lastSync);
-                pstmt.executeUpdate();
-            }
+    public void setLastSync(UUID playerId, long lastSync) {
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "setLastSync");
+            pstmt.setBytes(1, key(playerId));
+            pstmt.setLong(2, lastSync);
+            pstmt.setLong(3, lastSync);
+            pstmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().severe("最終同期日時の設定に失敗しました: " + e.getMessage());
         }
     }
     
+    /**
+     * サーバー間移動時の引き継ぎを待ち、このサーバーのリースを取得する
+     * <p>
+     * プレイヤーがオンラインの間、そのサーバーは last_sync に負の時刻（リース）を書き込みます。
+     * 退出時は未保存のデータを書き込んだ後に正の時刻へ戻してリースを解放するため、
+     * 参加先のサーバーは last_sync が負の間だけ短い間隔で確認を繰り返せば、前のサーバーの保存完了を待つことができます。
+     * 通常の参加ではリースは既に解放されているため待機は発生しません。
+     * 前のサーバーが停止した場合などは、handoff.max-wait の経過後にリースを引き継ぎます。
+     * プレイヤー名はリースと同じ書き込みで更新します。
+     */
     @Override
-    public synchronized boolean syncPlayerData(UUID playerId) {
-        String sql = "SELECT cumulative, last_reward, streak, last_streak_date, last_sync " +
-                "FROM " + tableName + " WHERE uuid = ?";
+    public boolean acquireLease(UUID playerId, String playerName) {
+        long deadline = System.currentTimeMillis() + handoffMaxWait;
+        boolean released = false;
         try {
-            reconnectIfNeeded();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        // データベースから最新のデータを取得済み
-                        // 実際の同期処理はメモリキャッシュがある場合に必要
-                        // このStorageインターフェースは直接データベースにアクセスするため、
-                        // 読み取り時に常に最新データを取得している
-                        return true;
+            while (true) {
+                long lastSync = 0L;
+                try (PooledConnection pooled = borrow(playerId)) {
+                    PreparedStatement pstmt = statements.prepare(pooled.get(), "getLastSync");
+                    pstmt.setBytes(1, key(playerId));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            lastSync = rs.getLong("last_sync");
+                        }
                     }
                 }
+                if (lastSync >= 0) {
+                    released = true;
+                    break;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    break;
+                }
+                Thread.sleep(handoffPollInterval);
+            }
+            
+            long lease = -System.currentTimeMillis();
+            try (PooledConnection pooled = pool.borrow()) {
+                PreparedStatement pstmt = statements.prepare(pooled.get(), "acquireLease");
+                pstmt.setBytes(1, key(playerId));
+                pstmt.setString(2, playerName);
+                pstmt.setLong(3, lease);
+                pstmt.executeUpdate();
+            }
+            leases.put(playerId, lease);
+        } catch (SQLException e) {
+            plugin.getLogger().severe("プレイヤーデータの引き継ぎに失敗しました: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return released;
+    }
+    
+    @Override
+    public CompletableFuture<Void> unloadPlayer(UUID playerId) {
+        // 退出前の書き込みは完了しているため、リースを解放して次のサーバーに引き継ぐ
+        Long lease = leases.remove(playerId);
+        if (lease == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> releaseLeases(Collections.singletonMap(playerId, lease)));
+    }
+    
+    /**
+     * リースを解放する
+     * 他のサーバーが既に引き継いだリースは変更しません
+     */
+    private void releaseLeases(Map<UUID, Long> released) {
+        long now = System.currentTimeMillis();
+        try (PooledConnection pooled = pool.borrow()) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "releaseLease");
+            try {
+                for (Map.Entry<UUID, Long> entry : released.entrySet()) {
+                    pstmt.setLong(1, now);
+                    pstmt.setBytes(2, key(entry.getKey()));
+                    pstmt.setLong(3, entry.getValue());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            } catch (SQLException e) {
+                pooled.markBroken();
+                pstmt.clearBatch();
+                throw e;
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("プレイヤーデータのリースの解放に失敗しました（" + released.size() + " 件）: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public boolean syncPlayerData(UUID playerId) {
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "syncPlayerData");
+            pstmt.setBytes(1, key(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    // このクラスは読み取り時に常に最新データを取得するため、行の存在確認のみ行う
+                    // メモリ上のデータの再読み込みは CachedStorage が担当する
+                    return true;
+                }
             }
         } catch (SQLException e) {
             plugin.getLogger().severe("プレイヤーデータの同期に失敗しました: " + e.getMessage());
@@ -348,26 +1077,33 @@ public class MySqlStorage implements StorageInterface {
     
     @Override
     public void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-                plugin.getLogger().info("MySQLデータベース接続を閉じました");
-            } catch (SQLException e) {
-                plugin.getLogger().severe("MySQLデータベース接続のクローズに失敗しました: " + e.getMessage());
+        // 移行スレッドは次の区切りで停止し、次回の起動時に再開する
+        migrating = false;
+        if (pool != null) {
+            // オンラインのまま停止する場合も、次の参加時に待機が発生しないようリースを解放する
+            if (!leases.isEmpty()) {
+                releaseLeases(new HashMap<>(leases));
+                leases.clear();
             }
+            pool.close();
+            statements.clear();
+            plugin.getLogger().info("MySQLデータベース接続を閉じました");
         }
     }
     
     @Override
-    public synchronized boolean deletePlayerData(UUID playerId) {
-        String sql = "DELETE FROM " + tableName + " WHERE uuid = ?";
-        try {
-            reconnectIfNeeded();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                int rowsAffected = pstmt.executeUpdate();
-                return rowsAffected > 0;
+    public boolean deletePlayerData(UUID playerId) {
+        try (PooledConnection pooled = pool.borrow()) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "deletePlayerData");
+            pstmt.setBytes(1, key(playerId));
+            int rowsAffected = pstmt.executeUpdate();
+            if (migrating) {
+                // 未移行の行が後から移行されて復活しないよう、v1形式のテーブルからも削除する
+                PreparedStatement legacy = statements.prepare(pooled.get(), "deleteLegacyRow");
+                legacy.setString(1, playerId.toString());
+                rowsAffected += legacy.executeUpdate();
             }
+            return rowsAffected > 0;
         } catch (SQLException e) {
             plugin.getLogger().severe("プレイヤーデータの削除に失敗しました: " + e.getMessage());
             return false;
@@ -375,14 +1111,15 @@ public class MySqlStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized boolean deleteAllPlayerData() {
+    public boolean deleteAllPlayerData() {
         String sql = "TRUNCATE TABLE " + tableName;
-        try {
-            reconnectIfNeeded();
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute(sql);
-                return true;
+        try (PooledConnection pooled = pool.borrow();
+             Statement stmt = pooled.get().createStatement()) {
+            stmt.execute(sql);
+            if (migrating) {
+                stmt.execute("TRUNCATE TABLE " + legacyTable);
             }
+            return true;
         } catch (SQLException e) {
             plugin.getLogger().severe("全プレイヤーデータの削除に失敗しました: " + e.getMessage());
             return false;
@@ -390,110 +1127,176 @@ public class MySqlStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized java.util.List<UUID> getAllPlayerUUIDs() {
-        java.util.List<UUID> uuids = new java.util.ArrayList<>();
+    public java.util.List<UUID> getAllPlayerUUIDs() {
+        java.util.Set<UUID> uuids = new java.util.LinkedHashSet<>();
         String sql = "SELECT uuid FROM " + tableName;
-        try {
-            reconnectIfNeeded();
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection pooled = pool.borrow();
+             Statement stmt = pooled.get().createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(sql)) {
                 while (rs.next()) {
-                    try {
-                        UUID uuid = UUID.fromString(rs.getString("uuid"));
+                    UUID uuid = CompactColumns.fromBytes(rs.getBytes("uuid"));
+                    if (uuid != null) {
                         uuids.add(uuid);
-                    } catch (IllegalArgumentException e) {
-                        plugin.getLogger().warning("無効なUUID: " + rs.getString("uuid"));
+                    } else {
+                        plugin.getLogger().warning("無効なUUIDの行があります");
+                    }
+                }
+            }
+            if (migrating) {
+                // 未移行のプレイヤーも含める
+                try (ResultSet rs = stmt.executeQuery("SELECT uuid FROM " + legacyTable)) {
+                    while (rs.next()) {
+                        try {
+                            uuids.add(UUID.fromString(rs.getString("uuid")));
+                        } catch (IllegalArgumentException e) {
+                            plugin.getLogger().warning("無効なUUID: " + rs.getString("uuid"));
+                        }
                     }
                 }
             }
         } catch (SQLException e) {
             plugin.getLogger().severe("プレイヤーUUIDリストの取得に失敗しました: " + e.getMessage());
         }
-        return uuids;
+        return new java.util.ArrayList<>(uuids);
     }
     
     @Override
-    public synchronized void updatePlayerName(UUID playerId, String playerName) {
+    public List<StreakEntry> topStreaks(int limit) {
+        List<StreakEntry> entries = new ArrayList<>();
+        if (limit <= 0) {
+            return entries;
+        }
+        try (PooledConnection pooled = pool.borrow()) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "topStreaks");
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = CompactColumns.fromBytes(rs.getBytes("uuid"));
+                    if (uuid != null) {
+                        entries.add(new StreakEntry(uuid, rs.getString("player_name"), rs.getInt("streak")));
+                    } else {
+                        plugin.getLogger().warning("無効なUUIDの行があります");
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("ストリークランキングの取得に失敗しました: " + e.getMessage());
+        }
+        return entries;
+    }
+    
+    @Override
+    public List<StatementRegistry.Stats> getStatementStats() {
+        return statements.getStats();
+    }
+    
+    @Override
+    public void updatePlayerName(UUID playerId, String playerName) {
         // INSERT ... ON DUPLICATE KEY UPDATE を使用して、行が存在しない場合は作成、存在する場合は更新
         // 新規作成時に必要な列も含めて値を設定
-        String sql = "INSERT INTO " + tableName + " (uuid, player_name, cumulative, streak, last_sync) VALUES (?, ?, ?, ?, ?) " +
-                "ON DUPLICATE KEY UPDATE player_name = ?, last_sync = ?";
-        try {
-            reconnectIfNeeded();
-            long currentTime = System.currentTimeMillis();
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                // INSERT用の値
-                pstmt.setString(1, playerId.toString());
-                pstmt.setString(2, playerName);
-                pstmt.setDouble(3, 0.0);  // cumulative のデフォルト値
-                pstmt.setInt(4, 1);       // streak のデフォルト値
-                pstmt.setLong(5, currentTime);  // last_sync
-                // UPDATE用の値
-                pstmt.setString(6, playerName);
-                pstmt.setLong(7, currentTime);  // last_sync
-                pstmt.executeUpdate();
-            }
+        long currentTime = System.currentTimeMillis();
+        try (PooledConnection pooled = borrow(playerId)) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "updatePlayerName");
+            // INSERT用の値
+            pstmt.setBytes(1, key(playerId));
+            pstmt.setString(2, playerName);
+            pstmt.setInt(3, 0);       // cumulative_seconds のデフォルト値
+            pstmt.setInt(4, 1);       // streak のデフォルト値
+            pstmt.setLong(5, currentTime);  // last_sync
+            // UPDATE用の値
+            pstmt.setString(6, playerName);
+            pstmt.setLong(7, currentTime);  // last_sync
+            pstmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().warning("プレイヤー名の更新に失敗しました: " + e.getMessage());
         }
     }
     
     /**
-     * データベース内の全プレイヤーのplayer_nameを更新
-     * Bukkitのオフラインプレイヤーキャッシュから名前を取得して更新します
+     * player_name が未設定のプレイヤーの名前を埋める
+     * 名前が未設定の行のみを主キーの順に一定件数ずつ読み込み、名前が分かるものをチャンクごとに1回のバッチ更新で書き込みます。
+     * ストレージ全体のロックは取らないため、実行中も他の操作は待たされません。
+     * v1形式のテーブルから未移行の行は対象外です（移行後に再度実行してください）。
+     * @param names プレイヤー名（オフラインプレイヤーのキャッシュなどから事前にまとめて取得したもの）
+     * @param onChunk チャンクごとに呼び出される処理（これまでに確認した行数、更新した行数）
      * @return 更新されたプレイヤー数
      */
-    public synchronized int migratePlayerNames() {
-        int updatedCount = 0;
-        java.util.List<UUID> allUUIDs = getAllPlayerUUIDs();
-        
-        plugin.getLogger().info("プレイヤー名の移行を開始します。対象: " + allUUIDs.size() + " 人");
-        
-        for (UUID uuid : allUUIDs) {
-            try {
-                // まず現在のplayer_nameを確認
-                String currentName = getPlayerNameFromDB(uuid);
-                
-                // player_nameが空またはNULLの場合のみ更新
-                if (currentName == null || currentName.isEmpty()) {
-                    // Bukkitのオフラインプレイヤーキャッシュから名前を取得
-                    org.bukkit.OfflinePlayer offlinePlayer = plugin.getServer().getOfflinePlayer(uuid);
-                    
-                    // プレイヤーが過去にサーバーに参加したことがあり、名前が取得できる場合
-                    if (offlinePlayer.hasPlayedBefore() && offlinePlayer.getName() != null) {
-                        String playerName = offlinePlayer.getName();
-                        updatePlayerName(uuid, playerName);
-                        updatedCount++;
-                        plugin.getLogger().info("プレイヤー名を更新: " + uuid + " -> " + playerName);
+    public int migratePlayerNames(Map<UUID, String> names, java.util.function.BiConsumer<Integer, Integer> onChunk) throws SQLException {
+        if (migrating) {
+            plugin.getLogger().warning("v1形式のテーブルから未移行の行はプレイヤー名の移行の対象外です");
+        }
+        int scanned = 0;
+        int updated = 0;
+        byte[] cursor = null;
+        while (true) {
+            List<byte[]> chunk = new ArrayList<>(NAME_CHUNK_SIZE);
+            try (PooledConnection pooled = pool.borrow()) {
+                Connection connection = pooled.get();
+                PreparedStatement select = statements.prepare(connection, cursor == null ? "missingNames" : "missingNamesAfter");
+                int index = 1;
+                if (cursor != null) {
+                    select.setBytes(index++, cursor);
+                }
+                select.setInt(index, NAME_CHUNK_SIZE);
+                select.setFetchSize(NAME_CHUNK_SIZE);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        chunk.add(rs.getBytes("uuid"));
                     }
                 }
-            } catch (Exception e) {
-                plugin.getLogger().warning("プレイヤー名の移行に失敗 (UUID: " + uuid + "): " + e.getMessage());
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                // 名前が分からない行は未設定のまま残るため、続きの位置から読み込む
+                cursor = chunk.get(chunk.size() - 1);
+                scanned += chunk.size();
+                updated += backfillNames(connection, chunk, names);
             }
+            onChunk.accept(scanned, updated);
         }
-        
-        plugin.getLogger().info("プレイヤー名の移行が完了しました。更新数: " + updatedCount + " 人");
-        return updatedCount;
+        plugin.getLogger().info("プレイヤー名の移行が完了しました。確認: " + scanned + " 人、更新数: " + updated + " 人");
+        return updated;
     }
-    
+
     /**
-     * データベースから直接player_nameを取得（キャッシュなし）
+     * 1チャンク分の名前を1つのトランザクションでバッチ更新する
+     * @return 更新された行数
      */
-    private String getPlayerNameFromDB(UUID playerId) {
+    private int backfillNames(Connection connection, List<byte[]> chunk, Map<UUID, String> names) throws SQLException {
+        PreparedStatement update = statements.prepare(connection, "backfillPlayerName");
+        int pending = 0;
+        for (byte[] uuid : chunk) {
+            UUID playerId = CompactColumns.fromBytes(uuid);
+            String playerName = playerId != null ? names.get(playerId) : null;
+            if (playerName == null || playerName.isEmpty()) {
+                continue;
+            }
+            update.setString(1, playerName);
+            update.setBytes(2, uuid);
+            update.addBatch();
+            pending++;
+        }
+        if (pending == 0) {
+            return 0;
+        }
+        connection.setAutoCommit(false);
         try {
-            reconnectIfNeeded();
-            String sql = "SELECT player_name FROM " + tableName + " WHERE uuid = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getString("player_name");
-                    }
+            int updated = 0;
+            for (int count : update.executeBatch()) {
+                // ドライバーが件数を返さない場合（SUCCESS_NO_INFO）は更新されたものとして数える
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    updated++;
                 }
             }
+            connection.commit();
+            return updated;
         } catch (SQLException e) {
-            plugin.getLogger().warning("player_nameの取得に失敗: " + e.getMessage());
+            // 再利用する文に未送信のバッチが残らないようにする
+            update.clearBatch();
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
         }
-        return null;
     }
 }
@@ -0,0 +1,212 @@
+package me.kubota6646.loginbonus.storage;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 1人分のプレイヤーデータ（player_data の1行に相当）
+ * 不変オブジェクトのため、値を変更する場合は with～ メソッドで新しいインスタンスを作成します。
+ */
+public final class PlayerRecord {
+
+    private final UUID playerId;
+    private final String playerName;
+    private final double cumulative;
+    private final String cumulativeDate;
+    private final String lastReward;
+    private final int streak;
+    private final String lastStreakDate;
+    private final long lastSync;
+
+    public PlayerRecord(UUID playerId, String playerName, double cumulative, String cumulativeDate, String lastReward,
+                        int streak, String lastStreakDate, long lastSync) {
+        this.playerId = Objects.requireNonNull(playerId, "playerId");
+        this.playerName = playerName;
+        this.cumulative = cumulative;
+        this.cumulativeDate = cumulativeDate;
+        this.lastReward = lastReward;
+        this.streak = streak;
+        this.lastStreakDate = lastStreakDate;
+        this.lastSync = lastSync;
+    }
+
+    /**
+     * データが存在しないプレイヤーの初期値
+     * @param playerId プレイヤーのUUID
+     * @return 累積時間0、ストリーク1のレコード
+     */
+    public static PlayerRecord empty(UUID playerId) {
+        return new PlayerRecord(playerId, null, 0.0, null, null, 1, null, 0L);
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * @return プレイヤー名、不明な場合はnull（MySQLのみ保存されます）
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * @return 累積時間（分）
+     */
+    public double getCumulative() {
+        return cumulative;
+    }
+
+    /**
+     * 指定したリセット日付の累積時間を取得
+     * 別のリセット日付に集計された累積時間は、日付が変わった時点で書き込みなしに0として扱われます
+     * @param resetDate 現在のリセット日付
+     * @return 累積時間（分）、別のリセット日付のものであれば0（集計日が未記録の場合は保存値）
+     */
+    public double getCumulativeFor(String resetDate) {
+        return cumulativeDate == null || cumulativeDate.equals(resetDate) ? cumulative : 0.0;
+    }
+
+    /**
+     * @return 累積時間を集計しているリセット日付、なければnull（集計日の記録前に保存されたデータ）
+     */
+    public String getCumulativeDate() {
+        return cumulativeDate;
+    }
+
+    /**
+     * @return 最終報酬日、なければnull
+     */
+    public String getLastReward() {
+        return lastReward;
+    }
+
+    public int getStreak() {
+        return streak;
+    }
+
+    /**
+     * @return 最終ストリーク日、なければnull
+     */
+    public String getLastStreakDate() {
+        return lastStreakDate;
+    }
+
+    /**
+     * @return 最終同期日時（エポックミリ秒）
+     */
+    public long getLastSync() {
+        return lastSync;
+    }
+
+    public PlayerRecord withPlayerName(String playerName) {
+        return new PlayerRecord(playerId, playerName, cumulative, cumulativeDate, lastReward, streak, lastStreakDate, lastSync);
+    }
+
+    public PlayerRecord withCumulative(double cumulative) {
+        return new PlayerRecord(playerId, playerName, cumulative, cumulativeDate, lastReward, streak, lastStreakDate, lastSync);
+    }
+
+    /**
+     * 累積時間に加算したレコードを作成
+     * 累積時間が前のリセット日付のものであれば、加算せずに置き換えます（集計日が未記録の場合は加算します）
+     * 累積時間より古いリセット日付の加算は無視し、同じレコードを返します
+     * @param minutes 加算する時間（分）
+     * @param resetDate 加算する時間のリセット日付
+     */
+    public PlayerRecord withAddedCumulative(double minutes, String resetDate) {
+        if (isOlderPeriod(resetDate, cumulativeDate)) {
+            return this;
+        }
+        boolean samePeriod = cumulativeDate == null || cumulativeDate.equals(resetDate);
+        return new PlayerRecord(playerId, playerName, samePeriod ? cumulative + minutes : minutes, resetDate, lastReward, streak, lastStreakDate, lastSync);
+    }
+
+    /**
+     * リセット日付が比較対象より前かどうか（YYYY-MM-DD HH:mm形式は文字列の順序が日付の順序と一致する）
+     * @return どちらかがnullの場合はfalse
+     */
+    static boolean isOlderPeriod(String resetDate, String than) {
+        return resetDate != null && than != null && resetDate.compareTo(than) < 0;
+    }
+
+    public PlayerRecord withLastReward(String lastReward) {
+        return new PlayerRecord(playerId, playerName, cumulative, cumulativeDate, lastReward, streak, lastStreakDate, lastSync);
+    }
+
+    public PlayerRecord withStreak(int streak) {
+        return new PlayerRecord(playerId, playerName, cumulative, cumulativeDate, lastReward, streak, lastStreakDate, lastSync);
+    }
+
+    public PlayerRecord withLastStreakDate(String lastStreakDate) {
+        return new PlayerRecord(playerId, playerName, cumulative, cumulativeDate, lastReward, streak, lastStreakDate, lastSync);
+    }
+
+    public PlayerRecord withLastSync(long lastSync) {
+        return new PlayerRecord(playerId, playerName, cumulative, cumulativeDate, lastReward, streak, lastStreakDate, lastSync);
+    }
+
+    /**
+     * リセット日のストリークを記録したレコードを作成
+     * 最終ストリーク日が前回のリセット日の場合はストリークを継続し、それ以外（初回や日付の解析失敗を含む）は1に戻します
+     * @param resetDate 現在のリセット日付（YYYY-MM-DD HH:mm形式）
+     */
+    public PlayerRecord withStreakUpdatedFor(String resetDate) {
+        boolean continues = lastStreakDate != null && !lastStreakDate.isEmpty()
+                && dayOf(lastStreakDate).equals(previousDay(resetDate));
+        return withStreak(continues ? streak + 1 : 1).withLastStreakDate(resetDate);
+    }
+
+    /**
+     * 前回のリセット日を取得
+     * @param resetDate 現在のリセット日付（YYYY-MM-DD HH:mm形式またはYYYY-MM-DD形式）
+     * @return 前日の日付（YYYY-MM-DD形式）、解析できない場合は空文字列
+     */
+    private static String previousDay(String resetDate) {
+        try {
+            return LocalDate.parse(dayOf(resetDate)).minusDays(1).toString();
+        } catch (DateTimeParseException e) {
+            return "";
+        }
+    }
+
+    private static String dayOf(String date) {
+        return date.length() > 10 ? date.substring(0, 10) : date;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PlayerRecord)) return false;
+        PlayerRecord that = (PlayerRecord) o;
+        return Double.compare(that.cumulative, cumulative) == 0
+                && streak == that.streak
+                && lastSync == that.lastSync
+                && playerId.equals(that.playerId)
+                && Objects.equals(playerName, that.playerName)
+                && Objects.equals(cumulativeDate, that.cumulativeDate)
+                && Objects.equals(lastReward, that.lastReward)
+                && Objects.equals(lastStreakDate, that.lastStreakDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(playerId, playerName, cumulative, cumulativeDate, lastReward, streak, lastStreakDate, lastSync);
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerRecord{" +
+                "playerId=" + playerId +
+                ", playerName=" + playerName +
+                ", cumulative=" + cumulative +
+                ", cumulativeDate=" + cumulativeDate +
+                ", lastReward=" + lastReward +
+                ", streak=" + streak +
+                ", lastStreakDate=" + lastStreakDate +
+                ", lastSync=" + lastSync +
+                '}';
+    }
+}
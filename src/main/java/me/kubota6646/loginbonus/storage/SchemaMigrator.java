@@ -0,0 +1,175 @@
+package me.kubota6646.loginbonus.storage;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * SQLストレージ（SQLite・MySQL）共通のスキーマ移行
+ * 適用済みの移行をバージョン管理用のテーブルに記録し、未適用の移行のみをバージョン順に1回だけ実行します。
+ * 全ての移行が適用済みであれば、起動時に行うのは記録の読み取りのみでテーブルの変更は行いません。
+ */
+public final class SchemaMigrator {
+
+    /**
+     * 1つの移行の処理
+     */
+    public interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final Step step;
+
+        private Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private final Logger logger;
+    private final String versionTable;
+    private final boolean transactionalDdl;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    /**
+     * @param logger 移行の結果を出力するロガー
+     * @param versionTable 適用済みの移行を記録するテーブル名
+     * @param transactionalDdl テーブルの変更をトランザクション内で行えるか（SQLiteはtrue、MySQLはfalse）
+     */
+    public SchemaMigrator(Logger logger, String versionTable, boolean transactionalDdl) {
+        this.logger = logger;
+        this.versionTable = versionTable;
+        this.transactionalDdl = transactionalDdl;
+    }
+
+    /**
+     * 移行を登録する（バージョンの昇順に登録すること）
+     * @param version バージョン（一度公開したバージョンの内容は変更しない）
+     * @param description ログと記録に使用する説明
+     * @param step 移行の処理
+     */
+    public SchemaMigrator add(int version, String description, Step step) {
+        if (!migrations.isEmpty() && migrations.get(migrations.size() - 1).version >= version) {
+            throw new IllegalArgumentException("移行はバージョンの昇順に登録してください: " + version);
+        }
+        migrations.add(new Migration(version, description, step));
+        return this;
+    }
+
+    /**
+     * 未適用の移行をバージョン順に適用する
+     * 移行に失敗した場合は以降の移行を行わずに例外を投げ、次回の起動時に失敗した移行から再開します
+     * @return 適用済みのバージョン（登録されていないバージョンの記録も含む）
+     */
+    public Set<Integer> migrate(Connection connection) throws SQLException {
+        Set<Integer> applied = appliedVersions(connection);
+        int pending = 0;
+        for (Migration migration : migrations) {
+            if (applied.contains(migration.version)) {
+                continue;
+            }
+            long startedAt = System.currentTimeMillis();
+            if (transactionalDdl) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                migration.step.apply(connection);
+                long duration = System.currentTimeMillis() - startedAt;
+                record(connection, migration.version, migration.description, duration);
+                if (transactionalDdl) {
+                    connection.commit();
+                }
+                logger.info("スキーマ移行 v" + migration.version + "（" + migration.description + "）を適用しました（" + duration + "ms）");
+            } catch (SQLException e) {
+                if (transactionalDdl) {
+                    connection.rollback();
+                }
+                throw new SQLException("スキーマ移行 v" + migration.version + "（" + migration.description + "）に失敗しました: " + e.getMessage(), e);
+            } finally {
+                if (transactionalDdl) {
+                    connection.setAutoCommit(true);
+                }
+            }
+            applied.add(migration.version);
+            pending++;
+        }
+        if (pending == 0) {
+            logger.fine("データベースのスキーマは最新です（" + versionTable + "）");
+        }
+        return applied;
+    }
+
+    /**
+     * 移行を適用済みとして記録する
+     * 起動後に別スレッドで完了する移行（行の移行など）の完了を記録するために使用します
+     * @return 記録した場合true、他のサーバーなどにより既に記録されていた場合false
+     */
+    public boolean markApplied(Connection connection, int version, String description, long durationMillis) throws SQLException {
+        if (appliedVersions(connection).contains(version)) {
+            return false;
+        }
+        try {
+            record(connection, version, description, durationMillis);
+        } catch (SQLException e) {
+            // 同時に記録された場合は主キーの重複になる
+            if (appliedVersions(connection).contains(version)) {
+                return false;
+            }
+            throw e;
+        }
+        logger.info("スキーマ移行 v" + version + "（" + description + "）を適用しました（" + durationMillis + "ms）");
+        return true;
+    }
+
+    private Set<Integer> appliedVersions(Connection connection) throws SQLException {
+        Set<Integer> applied = new TreeSet<>();
+        if (!versionTableExists(connection)) {
+            // 初回のみ作成する（以降の起動ではテーブルを変更しない）
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + versionTable + " (" +
+                        "version INTEGER NOT NULL PRIMARY KEY," +
+                        "description VARCHAR(255) NOT NULL," +
+                        "applied_at BIGINT NOT NULL," +
+                        "duration_ms BIGINT NOT NULL)");
+            }
+            return applied;
+        }
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM " + versionTable)) {
+            while (rs.next()) {
+                applied.add(rs.getInt(1));
+            }
+        }
+        return applied;
+    }
+
+    private boolean versionTableExists(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, versionTable, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private void record(Connection connection, int version, String description, long durationMillis) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT INTO " + versionTable + " (version, description, applied_at, duration_ms) VALUES (?, ?, ?, ?)")) {
+            pstmt.setInt(1, version);
+            pstmt.setString(2, description);
+            pstmt.setLong(3, System.currentTimeMillis());
+            pstmt.setLong(4, durationMillis);
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -1,21 +1,125 @@
 package me.kubota6646.loginbonus.storage;
 
+import me.kubota6646.loginbonus.storage.ConnectionPool.PooledConnection;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.sqlite.SQLiteConfig;
 
 import java.io.File;
 import java.sql.*;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * SQLiteストレージ
+ * WALモードで動作し、書き込みは専用の書き込みスレッドが1本の接続でまとめて行います。
+ * 書き込み待ち時間（write-batch-window）内に発生した書き込みは1つのトランザクションにまとめてコミットされ、
+ * 読み取りは読み取り専用の接続プールから並行して行います。
+ * 書き込みは呼び出し元を待たせずにキューへ追加され、読み取りはそれまでに追加された書き込みの完了を待ってから行います。
+ */
 public class SqliteStorage implements StorageInterface {
     
+    private static final String RECORD_COLUMNS = "cumulative_seconds, cumulative_day, last_reward_day, streak, last_streak_day, last_sync";
+    /**
+     * v2形式のテーブル（UUIDは16バイト、日付はリセット日のエポック日数、累積時間は秒）
+     * 主キーのみで検索するため、行IDを持たない WITHOUT ROWID テーブルにする
+     */
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS player_data (" +
+            "uuid BLOB PRIMARY KEY," +
+            "cumulative_seconds INTEGER NOT NULL DEFAULT 0," +
+            "cumulative_day INTEGER," +
+            "last_reward_day INTEGER," +
+            "streak INTEGER NOT NULL DEFAULT 1," +
+            "last_streak_day INTEGER," +
+            "last_sync INTEGER NOT NULL DEFAULT 0" +
+            ") WITHOUT ROWID";
+    private static final String UPSERT_RECORD_SQL = "INSERT INTO player_data (uuid, " + RECORD_COLUMNS + ") " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT(uuid) DO UPDATE SET cumulative_seconds = excluded.cumulative_seconds, cumulative_day = excluded.cumulative_day, " +
+            "last_reward_day = excluded.last_reward_day, streak = excluded.streak, last_streak_day = excluded.last_streak_day, last_sync = excluded.last_sync";
+    /**
+     * 累積時間を除いたレコードの保存（累積時間は加算で書き込むため、保存済みの値を維持する）
+     */
+    private static final String UPSERT_RECORD_EXCEPT_CUMULATIVE_SQL = "INSERT INTO player_data (uuid, last_reward_day, streak, last_streak_day, last_sync) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT(uuid) DO UPDATE SET last_reward_day = excluded.last_reward_day, streak = excluded.streak, " +
+            "last_streak_day = excluded.last_streak_day, last_sync = excluded.last_sync";
+    /**
+     * 累積時間の加算（保存済みの累積時間が同じリセット日、または集計日が未記録の場合は加算し、より新しいリセット日なら置き換える）
+     * 保存済みより古いリセット日の加算は無視する
+     */
+    private static final String ADD_CUMULATIVE_SQL = "INSERT INTO player_data (uuid, cumulative_seconds, cumulative_day) VALUES (?, ?, ?) " +
+            "ON CONFLICT(uuid) DO UPDATE SET cumulative_seconds = CASE " +
+            "WHEN cumulative_day IS NULL OR excluded.cumulative_day IS NULL OR cumulative_day = excluded.cumulative_day THEN cumulative_seconds + excluded.cumulative_seconds " +
+            "WHEN excluded.cumulative_day > cumulative_day THEN excluded.cumulative_seconds ELSE cumulative_seconds END, " +
+            "cumulative_day = CASE WHEN cumulative_day IS NULL OR excluded.cumulative_day > cumulative_day THEN excluded.cumulative_day ELSE cumulative_day END";
+    /**
+     * 報酬の受け取り（最終報酬日がリセット日と異なる場合のみ更新し、更新後のストリークを返す）
+     * パラメータ: uuid, リセット日, 最終ストリーク日（更新しない場合はnull）, ストリークを更新するか(1/0)
+     * 日付はエポック日数のため、最終ストリーク日が前日かどうかは整数の比較で判定する
+     */
+    private static final String CLAIM_REWARD_SQL = "INSERT INTO player_data (uuid, cumulative_seconds, last_reward_day, streak, last_streak_day) " +
+            "VALUES (?1, 0, ?2, 1, ?3) " +
+            "ON CONFLICT(uuid) DO UPDATE SET cumulative_seconds = 0, last_reward_day = excluded.last_reward_day, " +
+            "streak = CASE WHEN ?4 = 0 THEN streak WHEN last_streak_day = ?2 - 1 THEN streak + 1 ELSE 1 END, " +
+            "last_streak_day = CASE WHEN ?4 = 0 THEN last_streak_day ELSE excluded.last_streak_day END " +
+            "WHERE last_reward_day IS NULL OR last_reward_day <> excluded.last_reward_day " +
+            "RETURNING streak";
+    /** 移行が完了したv1形式のテーブル（バックアップとして残す） */
+    private static final String LEGACY_BACKUP_TABLE = "player_data_v1_backup";
+    /** IN句で1回に指定する最大件数（SQLiteのプレースホルダー上限より十分小さい値） */
+    private static final int BATCH_SIZE = 500;
+    /** 1つのトランザクションにまとめる最大の書き込み数 */
+    private static final int MAX_WRITES_PER_TRANSACTION = 1000;
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+    /** 列ごとの読み取り・更新文を登録する列 */
+    private static final String[][] COLUMN_STATEMENTS = {
+            {"Cumulative", "cumulative_seconds"},
+            {"LastReward", "last_reward_day"},
+            {"Streak", "streak"},
+            {"LastStreakDate", "last_streak_day"},
+            {"LastSync", "last_sync"}
+    };
+    
     private final JavaPlugin plugin;
-    private Connection connection;
     private final File dbFile;
+    private final String url;
+    private final int readPoolSize;
+    private final long batchWindowMillis;
+    private final BlockingQueue<WriteTask<?>> writeQueue = new LinkedBlockingQueue<>();
+    private final Object enqueueLock = new Object();
+    private final WriteTask<Void> stopSignal = new WriteTask<>("", connection -> null);
+    private Connection writer; // 書き込みスレッドからのみ使用
+    private Thread writerThread;
+    private ConnectionPool readPool;
+    private volatile CompletableFuture<?> lastWrite = CompletableFuture.completedFuture(null);
+    private volatile CompletableFuture<?> lastTableWrite = CompletableFuture.completedFuture(null); // 全プレイヤーが対象の書き込み
+    private final Map<UUID, CompletableFuture<?>> playerWrites = new ConcurrentHashMap<>(); // プレイヤーごとの未完了の最後の書き込み
+    private volatile boolean closed;
+    private final StatementRegistry statements = createStatements();
     
     public SqliteStorage(JavaPlugin plugin) {
         this.plugin = plugin;
         this.dbFile = new File(plugin.getDataFolder(), "playerdata.db");
+        this.url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        this.readPoolSize = Math.max(1, plugin.getConfig().getInt("sqlite.read-pool-size", 4));
+        long window = plugin.getConfig().getLong("sqlite.write-batch-window", 10L);
+        if (window < 0) {
+            plugin.getLogger().warning("sqlite.write-batch-window が負の値です（" + window + "ミリ秒）。0を使用します。");
+            window = 0;
+        }
+        this.batchWindowMillis = window;
     }
     
     @Override
@@ -27,56 +131,166 @@ public class SqliteStorage implements StorageInterface {
                 }
             }
             
-            String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
-            connection = DriverManager.getConnection(url);
+            writer = openWriteConnection();
             
-            // テーブルを作成
-            String createTable = "CREATE TABLE IF NOT EXISTS player_data (" +
-                    "uuid TEXT PRIMARY KEY," +
-                    "cumulative REAL DEFAULT 0.0," +
-                    "last_reward TEXT," +
-                    "streak INTEGER DEFAULT 1," +
-                    "last_streak_date TEXT," +
-                    "last_sync INTEGER DEFAULT 0" +
-                    ");";
+            // 未適用のスキーマ移行を適用（適用済みであればテーブルは変更しない）
+            createMigrator().migrate(writer);
             
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute(createTable);
-            }
+            // 読み取り専用の接続プール（テーブル作成後に開く）
+            readPool = new ConnectionPool("LoginBonus-SQLite", plugin.getLogger(), this::openReadConnection,
+                    readPoolSize, 1, 30000L, 30000L);
+            readPool.start();
             
-            // 既存テーブルにlast_syncカラムを追加（存在しない場合）
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery("PRAGMA table_info(player_data)")) {
-                boolean hasLastSync = false;
+            writerThread = new Thread(this::runWriter, "LoginBonus-SQLiteWriter");
+            writerThread.setDaemon(true);
+            writerThread.start();
+            
+            plugin.getLogger().info("SQLiteデータベースを初期化しました: " + dbFile.getAbsolutePath() +
+                    "（WALモード、読み取り接続数: " + readPoolSize + "、書き込み待ち時間: " + batchWindowMillis + "ms）");
+        } catch (SQLException e) {
+            plugin.getLogger().severe("SQLiteデータベースの初期化に失敗しました: " + e.getMessage());
+            plugin.getLogger().severe("スタックトレース: " + java.util.Arrays.toString(e.getStackTrace()));
+            // 開いた接続を閉じ、以降の書き込みが待機し続けずにすぐ失敗するようにする
+            close();
+            throw new IllegalStateException("SQLiteデータベースの初期化に失敗しました: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * スキーマ移行を定義する
+     * 一度公開した移行の内容は変更せず、変更が必要な場合は新しいバージョンを追加すること
+     * SQLiteはテーブルの変更もトランザクション内で行えるため、各移行は記録と合わせて1つのトランザクションで適用されます
+     */
+    private SchemaMigrator createMigrator() {
+        return new SchemaMigrator(plugin.getLogger(), "schema_version", true)
+                .add(1, "v1形式のテーブルをv2形式に変換", this::migrateLegacyTable)
+                .add(2, "テーブルとインデックスを作成", connection -> {
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.execute(CREATE_TABLE_SQL);
+                        // ストリークランキング用のインデックス
+                        stmt.execute("CREATE INDEX IF NOT EXISTS idx_streak ON player_data (streak)");
+                    }
+                });
+    }
+    
+    /**
+     * v1形式のテーブル（UUIDが文字列）をv2形式に変換する
+     * v1形式のテーブルは別名に変更してバックアップとして残し、全ての行を変換して書き込みます。
+     * SQLiteは1つのサーバーからのみ使用されるため、起動時に書き込みスレッドの開始前に行います。
+     */
+    private void migrateLegacyTable(Connection connection) throws SQLException {
+        Map<String, String> columns = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(player_data)")) {
+            while (rs.next()) {
+                columns.put(rs.getString("name"), rs.getString("type"));
+            }
+        }
+        if (!"TEXT".equalsIgnoreCase(columns.get("uuid"))) {
+            return;
+        }
+        
+        plugin.getLogger().info("v1形式のSQLiteテーブルをv2形式に移行しています...");
+        int copied = 0;
+        // 古いバージョンで作成されたテーブルに無い列はNULLとして読み取る
+        String select = "SELECT uuid, cumulative, " +
+                (columns.containsKey("cumulative_date") ? "cumulative_date" : "NULL AS cumulative_date") +
+                ", last_reward, streak, last_streak_date, " +
+                (columns.containsKey("last_sync") ? "last_sync" : "0 AS last_sync") +
+                " FROM " + LEGACY_BACKUP_TABLE;
+        try (Statement stmt = connection.createStatement()) {
+            // インデックス名はデータベース全体で共通のため、v2形式のテーブル用に空けておく
+            stmt.execute("DROP INDEX IF EXISTS idx_streak");
+            stmt.execute("ALTER TABLE player_data RENAME TO " + LEGACY_BACKUP_TABLE);
+            stmt.execute(CREATE_TABLE_SQL);
+            try (ResultSet rs = stmt.executeQuery(select);
+                 PreparedStatement insert = connection.prepareStatement(
+                         "INSERT OR IGNORE INTO player_data (uuid, " + RECORD_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                int pending = 0;
                 while (rs.next()) {
-                    if ("last_sync".equals(rs.getString("name"))) {
-                        hasLastSync = true;
-                        break;
+                    UUID playerId;
+                    try {
+                        playerId = UUID.fromString(rs.getString("uuid"));
+                    } catch (IllegalArgumentException | NullPointerException e) {
+                        plugin.getLogger().warning("無効なUUIDの行を移行から除外しました: " + rs.getString("uuid"));
+                        continue;
+                    }
+                    int streak = rs.getInt("streak");
+                    if (rs.wasNull()) {
+                        streak = 1;
+                    }
+                    insert.setBytes(1, CompactColumns.toBytes(playerId));
+                    insert.setInt(2, CompactColumns.toSeconds(rs.getDouble("cumulative")));
+                    CompactColumns.setNullableInt(insert, 3, CompactColumns.toDay(rs.getString("cumulative_date")));
+                    CompactColumns.setNullableInt(insert, 4, CompactColumns.toDay(rs.getString("last_reward")));
+                    insert.setInt(5, streak);
+                    CompactColumns.setNullableInt(insert, 6, CompactColumns.toDay(rs.getString("last_streak_date")));
+                    insert.setLong(7, rs.getLong("last_sync"));
+                    insert.addBatch();
+                    copied++;
+                    if (++pending >= BATCH_SIZE) {
+                        insert.executeBatch();
+                        pending = 0;
                     }
                 }
-                if (!hasLastSync) {
-                    stmt.execute("ALTER TABLE player_data ADD COLUMN last_sync INTEGER DEFAULT 0");
+                if (pending > 0) {
+                    insert.executeBatch();
                 }
-            } catch (SQLException e) {
-                plugin.getLogger().warning("last_syncカラムの確認/追加に失敗しました: " + e.getMessage());
             }
-            
-            plugin.getLogger().info("SQLiteデータベースを初期化しました: " + dbFile.getAbsolutePath());
-        } catch (SQLException e) {
-            plugin.getLogger().severe("SQLiteデータベースの初期化に失敗しました: " + e.getMessage());
-            plugin.getLogger().severe("スタックトレース: " + java.util.Arrays.toString(e.getStackTrace()));
         }
+        plugin.getLogger().info(copied + " 件の行をv2形式に変換しました。v1形式のテーブルは " + LEGACY_BACKUP_TABLE + " として残っています。");
+    }
+    
+    /**
+     * 繰り返し実行するSQLを登録する
+     * 書き込み用の接続と読み取り専用の各接続で、それぞれ最初の実行時に1回だけ準備されます
+     */
+    private static StatementRegistry createStatements() {
+        StatementRegistry registry = new StatementRegistry();
+        for (String[] column : COLUMN_STATEMENTS) {
+            registry.register("get" + column[0], "SELECT " + column[1] + " FROM player_data WHERE uuid = ?")
+                    .register("set" + column[0], "INSERT INTO player_data (uuid, " + column[1] + ") VALUES (?, ?) " +
+                            "ON CONFLICT(uuid) DO UPDATE SET " + column[1] + " = excluded." + column[1]);
+        }
+        return registry
+                .register("loadRecord", "SELECT " + RECORD_COLUMNS + " FROM player_data WHERE uuid = ?")
+                .register("addCumulative", ADD_CUMULATIVE_SQL)
+                .register("upsertRecord", UPSERT_RECORD_SQL)
+                .register("upsertRecordExceptCumulative", UPSERT_RECORD_EXCEPT_CUMULATIVE_SQL)
+                .register("claimReward", CLAIM_REWARD_SQL)
+                .register("deletePlayerData", "DELETE FROM player_data WHERE uuid = ?")
+                .register("topStreaks", "SELECT uuid, streak FROM player_data WHERE streak > 0 ORDER BY streak DESC LIMIT ?")
+                .register("scanRecords", "SELECT uuid, " + RECORD_COLUMNS + " FROM player_data ORDER BY uuid LIMIT ?")
+                .register("scanRecordsAfter", "SELECT uuid, " + RECORD_COLUMNS + " FROM player_data WHERE uuid > ? ORDER BY uuid LIMIT ?");
     }
     
     /**
-     * 接続が有効かチェックし、必要に応じて再接続する
+     * 書き込み用の接続を開く
+     * WALモードでは synchronous=NORMAL でもデータベースの破損は起こらず、コミットごとのディスク同期が不要になります
+     */
+    private Connection openWriteConnection() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setBusyTimeout(BUSY_TIMEOUT_MILLIS);
+        return config.createConnection(url);
+    }
+    
+    private Connection openReadConnection() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        config.setBusyTimeout(BUSY_TIMEOUT_MILLIS);
+        return config.createConnection(url);
+    }
+    
+    /**
+     * 書き込み用の接続が有効かチェックし、必要に応じて再接続する（書き込みスレッドから呼び出し）
      */
     private void reconnectIfNeeded() throws SQLException {
         try {
-            if (connection == null || connection.isClosed()) {
+            if (writer == null || writer.isClosed()) {
                 plugin.getLogger().warning("SQLite接続が切断されました。再接続を試みます...");
-                String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
-                connection = DriverManager.getConnection(url);
+                writer = openWriteConnection();
                 plugin.getLogger().info("SQLite接続を再確立しました");
             }
         } catch (SQLException e) {
@@ -85,162 +299,575 @@ public class SqliteStorage implements StorageInterface {
         }
     }
     
-    @Override
-    public synchronized double getCumulative(UUID playerId) {
+    /**
+     * 書き込みを行う処理
+     */
+    private interface SqlWrite<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+    
+    /**
+     * 書き込みキューの要素
+     */
+    private static final class WriteTask<T> {
+        private final String description;
+        private final SqlWrite<T> write;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        
+        private WriteTask(String description, SqlWrite<T> write) {
+            this.description = description;
+            this.write = write;
+        }
+        
+        private void execute(Connection connection) throws SQLException {
+            result = write.apply(connection);
+        }
+        
+        /**
+         * コミット後に呼び出し、書き込みの完了を通知する
+         */
+        private void complete() {
+            future.complete(result);
+        }
+    }
+    
+    /**
+     * 書き込みをキューに追加する
+     * @param description 失敗時のログに使用する処理名
+     * @param playerIds 書き込むプレイヤー（nullの場合は全プレイヤーが対象）
+     * @return 書き込みの完了（失敗した場合は例外で完了）
+     */
+    private <T> CompletableFuture<T> submitWrite(String description, Collection<UUID> playerIds, SqlWrite<T> write) {
+        WriteTask<T> task = new WriteTask<>(description, write);
+        synchronized (enqueueLock) {
+            if (closed) {
+                plugin.getLogger().severe(description + "に失敗しました: SQLiteデータベースは既に閉じられています");
+                task.future.completeExceptionally(new SQLException("SQLiteデータベースは既に閉じられています"));
+                return task.future;
+            }
+            writeQueue.add(task);
+            lastWrite = task.future;
+            if (playerIds == null) {
+                lastTableWrite = task.future;
+            } else {
+                List<UUID> ids = new ArrayList<>(playerIds);
+                for (UUID playerId : ids) {
+                    playerWrites.put(playerId, task.future);
+                }
+                // 完了後に、より新しい書き込みに置き換えられていないものだけ削除する
+                task.future.whenComplete((result, error) -> {
+                    for (UUID playerId : ids) {
+                        playerWrites.remove(playerId, task.future);
+                    }
+                });
+            }
+        }
+        return task.future;
+    }
+    
+    /**
+     * 書き込みの完了を待って結果を返す
+     * @param failureValue 書き込みに失敗した場合の戻り値
+     */
+    private static <T> T await(CompletableFuture<T> future, T failureValue) {
         try {
-            reconnectIfNeeded();
-            String sql = "SELECT cumulative FROM player_data WHERE uuid = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getDouble("cumulative");
+            return future.join();
+        } catch (CompletionException | java.util.concurrent.CancellationException e) {
+            return failureValue;
+        }
+    }
+    
+    /**
+     * これまでにキューへ追加された書き込みの完了を待つ
+     * 全プレイヤーを読み取る前に呼び出し、直前の書き込みが反映された状態で読み取ります
+     */
+    private void awaitPendingWrites() {
+        awaitWrite(lastWrite);
+    }
+    
+    /**
+     * 指定したプレイヤーについてキューへ追加された書き込みの完了を待つ
+     * 他のプレイヤーへの書き込みは待たないため、一括書き込みの実行中でも読み取りが遅れません
+     */
+    private void awaitPendingWrites(Collection<UUID> playerIds) {
+        awaitWrite(lastTableWrite);
+        for (UUID playerId : playerIds) {
+            CompletableFuture<?> pending = playerWrites.get(playerId);
+            if (pending != null) {
+                awaitWrite(pending);
+            }
+        }
+    }
+    
+    private static void awaitWrite(CompletableFuture<?> pending) {
+        if (!pending.isDone()) {
+            await(pending, null);
+        }
+    }
+    
+    /**
+     * 書き込みスレッドの処理
+     * 最初の書き込みから書き込み待ち時間の間に追加された書き込みを、1つのトランザクションにまとめて実行します
+     */
+    private void runWriter() {
+        List<WriteTask<?>> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                WriteTask<?> first = writeQueue.take();
+                if (first == stopSignal) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+                while (batch.size() < MAX_WRITES_PER_TRANSACTION) {
+                    long remaining = deadline - System.nanoTime();
+                    WriteTask<?> next = remaining > 0 ? writeQueue.poll(remaining, TimeUnit.NANOSECONDS) : writeQueue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == stopSignal) {
+                        stopping = true;
+                        break;
                     }
+                    batch.add(next);
                 }
+                executeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopping = true;
+            } catch (RuntimeException e) {
+                plugin.getLogger().severe("SQLiteの書き込み中にエラーが発生しました: " + e.getMessage());
+                for (WriteTask<?> task : batch) {
+                    task.future.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("累積時間の取得に失敗しました: " + e.getMessage());
         }
-        return 0.0;
+        // 停止時に残っている書き込みを実行する
+        writeQueue.remove(stopSignal);
+        writeQueue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            executeBatch(batch);
+        }
     }
     
-    @Override
-    public synchronized void setCumulative(UUID playerId, double cumulative) {
+    private void executeBatch(List<WriteTask<?>> batch) {
         try {
             reconnectIfNeeded();
-            String sql = "INSERT INTO player_data (uuid, cumulative) VALUES (?, ?) " +
-                    "ON CONFLICT(uuid) DO UPDATE SET cumulative = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setDouble(2, cumulative);
-                pstmt.setDouble(3, cumulative);
-                pstmt.executeUpdate();
+            if (batch.size() == 1) {
+                WriteTask<?> task = batch.get(0);
+                task.execute(writer);
+                task.complete();
+                return;
+            }
+            writer.setAutoCommit(false);
+            try {
+                for (WriteTask<?> task : batch) {
+                    task.execute(writer);
+                }
+                writer.commit();
+            } catch (SQLException e) {
+                writer.rollback();
+                throw e;
+            } finally {
+                writer.setAutoCommit(true);
             }
+            // 読み取り側がコミット前のデータを読まないよう、完了の通知はコミット後に行う
+            for (WriteTask<?> task : batch) {
+                task.complete();
+            }
+            return;
         } catch (SQLException e) {
-            plugin.getLogger().severe("累積時間の設定に失敗しました: " + e.getMessage());
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+        }
+        // まとめた書き込みが失敗した場合は、1件の失敗で他の書き込みが失われないように個別に実行する
+        for (WriteTask<?> task : batch) {
+            try {
+                reconnectIfNeeded();
+                task.execute(writer);
+                task.complete();
+            } catch (SQLException e) {
+                fail(task, e);
+            }
         }
     }
     
-    @Override
-    public synchronized String getLastReward(UUID playerId) {
-        try {
-            reconnectIfNeeded();
-            String sql = "SELECT last_reward FROM player_data WHERE uuid = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getString("last_reward");
-                    }
+    private void fail(WriteTask<?> task, SQLException e) {
+        plugin.getLogger().severe(task.description + "に失敗しました: " + e.getMessage());
+        task.future.completeExceptionally(e);
+    }
+    
+    /**
+     * 1つの列を更新する書き込みをキューに追加する
+     */
+    private void upsertColumn(String statementName, UUID playerId, Object value, String description) {
+        submitWrite(description, Collections.singletonList(playerId), connection -> {
+            PreparedStatement pstmt = statements.prepare(connection, statementName);
+            pstmt.setBytes(1, CompactColumns.toBytes(playerId));
+            pstmt.setObject(2, value);
+            pstmt.executeUpdate();
+            return null;
+        });
+    }
+    
+    /**
+     * 結果の列を読み取る処理
+     */
+    private interface ColumnReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * プレイヤーの1つの列を読み取る
+     * @return 値、プレイヤーが存在しない場合やエラーの場合は defaultValue
+     */
+    private <T> T selectColumn(String statementName, UUID playerId, ColumnReader<T> reader, T defaultValue, String description) {
+        awaitPendingWrites(Collections.singletonList(playerId));
+        try (PooledConnection pooled = readPool.borrow()) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), statementName);
+            pstmt.setBytes(1, CompactColumns.toBytes(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return reader.read(rs);
                 }
             }
         } catch (SQLException e) {
-            plugin.getLogger().severe("最終報酬日の取得に失敗しました: " + e.getMessage());
+            plugin.getLogger().severe(description + "に失敗しました: " + e.getMessage());
         }
-        return null;
+        return defaultValue;
     }
     
     @Override
-    public synchronized void setLastReward(UUID playerId, String lastReward) {
-        try {
-            reconnectIfNeeded();
-            String sql = "INSERT INTO player_data (uuid, last_reward) VALUES (?, ?) " +
-                    "ON CONFLICT(uuid) DO UPDATE SET last_reward = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setString(2, lastReward);
-                pstmt.setString(3, lastReward);
-                pstmt.executeUpdate();
+    public double getCumulative(UUID playerId) {
+        return selectColumn("getCumulative", playerId, rs -> CompactColumns.toMinutes(rs.getLong(1)), 0.0, "累積時間の取得");
+    }
+    
+    @Override
+    public void setCumulative(UUID playerId, double cumulative) {
+        upsertColumn("setCumulative", playerId, CompactColumns.toSeconds(cumulative), "累積時間の設定");
+    }
+    
+    @Override
+    public void addCumulative(UUID playerId, double minutes, String resetDate) {
+        addCumulatives(Collections.singletonMap(playerId, minutes), resetDate);
+    }
+    
+    @Override
+    public void addCumulatives(Map<UUID, Double> minutes, String resetDate) {
+        if (!minutes.isEmpty()) {
+            submitCumulatives(minutes, resetDate);
+        }
+    }
+    
+    @Override
+    public boolean addCumulativesAndWait(Map<UUID, Double> minutes, String resetDate) {
+        return minutes.isEmpty() || await(submitCumulatives(minutes, resetDate), false);
+    }
+    
+    /**
+     * 書き込みスレッドで累積時間の加算をバッチ実行するよう依頼する
+     */
+    private CompletableFuture<Boolean> submitCumulatives(Map<UUID, Double> minutes, String resetDate) {
+        Map<UUID, Double> snapshot = new HashMap<>(minutes);
+        Integer resetDay = CompactColumns.toDay(resetDate);
+        return submitWrite("累積時間の加算（" + snapshot.size() + " 件）", snapshot.keySet(), connection -> {
+            PreparedStatement pstmt = statements.prepare(connection, "addCumulative");
+            try {
+                for (Map.Entry<UUID, Double> entry : snapshot.entrySet()) {
+                    pstmt.setBytes(1, CompactColumns.toBytes(entry.getKey()));
+                    pstmt.setInt(2, CompactColumns.toSeconds(entry.getValue()));
+                    CompactColumns.setNullableInt(pstmt, 3, resetDay);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            } catch (SQLException e) {
+                pstmt.clearBatch();
+                throw e;
+            }
+            return true;
+        });
+    }
+    
+    @Override
+    public String getLastReward(UUID playerId) {
+        return selectColumn("getLastReward", playerId, rs -> resetDate(rs, "last_reward_day", resetTime()), null, "最終報酬日の取得");
+    }
+    
+    @Override
+    public void setLastReward(UUID playerId, String lastReward) {
+        upsertColumn("setLastReward", playerId, CompactColumns.toDay(lastReward), "最終報酬日の設定");
+    }
+    
+    @Override
+    public int getStreak(UUID playerId) {
+        return selectColumn("getStreak", playerId, rs -> rs.getInt(1), 1, "ストリークの取得");
+    }
+    
+    @Override
+    public void setStreak(UUID playerId, int streak) {
+        upsertColumn("setStreak", playerId, streak, "ストリークの設定");
+    }
+    
+    @Override
+    public String getLastStreakDate(UUID playerId) {
+        return selectColumn("getLastStreakDate", playerId, rs -> resetDate(rs, "last_streak_day", resetTime()), null, "最終ストリーク日の取得");
+    }
+    
+    @Override
+    public void setLastStreakDate(UUID playerId, String lastStreakDate) {
+        upsertColumn("setLastStreakDate", playerId, CompactColumns.toDay(lastStreakDate), "最終ストリーク日の設定");
+    }
+    
+    @Override
+    public PlayerRecord loadRecord(UUID playerId) {
+        awaitPendingWrites(Collections.singletonList(playerId));
+        LocalTime resetTime = resetTime();
+        try (PooledConnection pooled = readPool.borrow()) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "loadRecord");
+            pstmt.setBytes(1, CompactColumns.toBytes(playerId));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readRecord(playerId, rs, resetTime);
+                }
             }
         } catch (SQLException e) {
-            plugin.getLogger().severe("最終報酬日の設定に失敗しました: " + e.getMessage());
+            plugin.getLogger().severe("プレイヤーデータの取得に失敗しました: " + e.getMessage());
         }
+        return null;
     }
     
     @Override
-    public synchronized int getStreak(UUID playerId) {
-        try {
-            reconnectIfNeeded();
-            String sql = "SELECT streak FROM player_data WHERE uuid = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getInt("streak");
+    public Map<UUID, PlayerRecord> loadRecords(Collection<UUID> playerIds) {
+        Map<UUID, PlayerRecord> records = new HashMap<>();
+        if (playerIds.isEmpty()) {
+            return records;
+        }
+        awaitPendingWrites(playerIds);
+        List<UUID> ids = new ArrayList<>(playerIds);
+        LocalTime resetTime = resetTime();
+        try (PooledConnection pooled = readPool.borrow()) {
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+                StringBuilder sql = new StringBuilder("SELECT uuid, " + RECORD_COLUMNS + " FROM player_data WHERE uuid IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ",?");
+                }
+                sql.append(")");
+                try (PreparedStatement pstmt = pooled.get().prepareStatement(sql.toString())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setBytes(i + 1, CompactColumns.toBytes(chunk.get(i)));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            UUID playerId = CompactColumns.fromBytes(rs.getBytes("uuid"));
+                            records.put(playerId, readRecord(playerId, rs, resetTime));
+                        }
                     }
                 }
             }
         } catch (SQLException e) {
-            plugin.getLogger().severe("ストリークの取得に失敗しました: " + e.getMessage());
+            plugin.getLogger().severe("プレイヤーデータの一括取得に失敗しました: " + e.getMessage());
         }
-        return 1;
+        return records;
     }
     
     @Override
-    public synchronized void setStreak(UUID playerId, int streak) {
-        try {
-            reconnectIfNeeded();
-            String sql = "INSERT INTO player_data (uuid, streak) VALUES (?, ?) " +
-                    "ON CONFLICT(uuid) DO UPDATE SET streak = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setInt(2, streak);
-                pstmt.setInt(3, streak);
-                pstmt.executeUpdate();
+    public List<PlayerRecord> scanRecords(UUID after, int limit) {
+        List<PlayerRecord> records = new ArrayList<>(limit);
+        awaitPendingWrites();
+        LocalTime resetTime = resetTime();
+        try (PooledConnection pooled = readPool.borrow()) {
+            // 主キーの順に読むため、続きの位置から索引を使って取得できる
+            PreparedStatement pstmt = statements.prepare(pooled.get(), after == null ? "scanRecords" : "scanRecordsAfter");
+            int index = 1;
+            if (after != null) {
+                pstmt.setBytes(index++, CompactColumns.toBytes(after));
+            }
+            pstmt.setInt(index, limit);
+            pstmt.setFetchSize(limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID playerId = CompactColumns.fromBytes(rs.getBytes("uuid"));
+                    if (playerId != null) {
+                        records.add(readRecord(playerId, rs, resetTime));
+                    }
+                }
             }
         } catch (SQLException e) {
-            plugin.getLogger().severe("ストリークの設定に失敗しました: " + e.getMessage());
+            plugin.getLogger().severe("プレイヤーデータの走査に失敗しました: " + e.getMessage());
+            throw new IllegalStateException(e.getMessage(), e);
         }
+        return records;
+    }
+    
+    /**
+     * 現在の行をプレイヤーデータとして読み取る
+     * @param resetTime リセット時刻（設定の読み取りを行ごとに繰り返さないよう、呼び出し元でクエリごとに1回解決する）
+     */
+    private PlayerRecord readRecord(UUID playerId, ResultSet rs, LocalTime resetTime) throws SQLException {
+        return new PlayerRecord(playerId, null,
+                CompactColumns.toMinutes(rs.getLong("cumulative_seconds")),
+                resetDate(rs, "cumulative_day", resetTime),
+                resetDate(rs, "last_reward_day", resetTime),
+                rs.getInt("streak"),
+                resetDate(rs, "last_streak_day", resetTime),
+                rs.getLong("last_sync"));
+    }
+    
+    /**
+     * エポック日数の列をリセット日付（YYYY-MM-DD HH:mm形式）として読み取る
+     */
+    private static String resetDate(ResultSet rs, String column, LocalTime resetTime) throws SQLException {
+        return CompactColumns.toResetDate(CompactColumns.getNullableInt(rs, column), resetTime);
+    }
+    
+    /**
+     * 読み込んだエポック日数をリセット日付に戻す際のリセット時刻
+     */
+    private LocalTime resetTime() {
+        return CompactColumns.resetTime(plugin.getConfig().getString("reset-time", "00:00"));
     }
     
     @Override
-    public synchronized String getLastStreakDate(UUID playerId) {
-        try {
-            reconnectIfNeeded();
-            String sql = "SELECT last_streak_date FROM player_data WHERE uuid = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getString("last_streak_date");
+    public void saveRecord(PlayerRecord record) {
+        saveRecordAsync(record);
+    }
+    
+    @Override
+    public CompletableFuture<Void> saveRecordAsync(PlayerRecord record) {
+        return submitWrite("プレイヤーデータの保存", Collections.singletonList(record.getPlayerId()), connection -> {
+            PreparedStatement pstmt = statements.prepare(connection, "upsertRecord");
+            bindRecord(pstmt, record);
+            pstmt.executeUpdate();
+            return null;
+        });
+    }
+    
+    @Override
+    public void saveRecords(Collection<PlayerRecord> records) {
+        if (!records.isEmpty()) {
+            submitRecords(records);
+        }
+    }
+    
+    @Override
+    public boolean saveRecordsAndWait(Collection<PlayerRecord> records) {
+        return records.isEmpty() || await(submitRecords(records), false);
+    }
+    
+    @Override
+    public boolean saveRecordsExceptCumulativeAndWait(Collection<PlayerRecord> records) {
+        return records.isEmpty() || await(submitRecords(records, false), false);
+    }
+    
+    private CompletableFuture<Boolean> submitRecords(Collection<PlayerRecord> records) {
+        return submitRecords(records, true);
+    }
+    
+    /**
+     * 書き込みスレッドのトランザクション内でバッチ実行するよう依頼する
+     * @param includeCumulative falseの場合は保存済みの累積時間を変更しない
+     */
+    private CompletableFuture<Boolean> submitRecords(Collection<PlayerRecord> records, boolean includeCumulative) {
+        List<PlayerRecord> snapshot = new ArrayList<>(records);
+        List<UUID> ids = new ArrayList<>(snapshot.size());
+        for (PlayerRecord record : snapshot) {
+            ids.add(record.getPlayerId());
+        }
+        return submitWrite("プレイヤーデータの一括保存（" + snapshot.size() + " 件）", ids, connection -> {
+            PreparedStatement pstmt = statements.prepare(connection, includeCumulative ? "upsertRecord" : "upsertRecordExceptCumulative");
+            try {
+                for (PlayerRecord record : snapshot) {
+                    if (includeCumulative) {
+                        bindRecord(pstmt, record);
+                    } else {
+                        bindRecordExceptCumulative(pstmt, record);
                     }
+                    pstmt.addBatch();
                 }
+                pstmt.executeBatch();
+            } catch (SQLException e) {
+                // 再利用する文に未送信のバッチが残らないようにする
+                pstmt.clearBatch();
+                throw e;
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("最終ストリーク日の取得に失敗しました: " + e.getMessage());
-        }
-        return null;
+            return true;
+        });
     }
     
     @Override
-    public synchronized void setLastStreakDate(UUID playerId, String lastStreakDate) {
-        try {
-            reconnectIfNeeded();
-            String sql = "INSERT INTO player_data (uuid, last_streak_date) VALUES (?, ?) " +
-                    "ON CONFLICT(uuid) DO UPDATE SET last_streak_date = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerId.toString());
-                pstmt.setString(2, lastStreakDate);
-                pstmt.setString(3, lastStreakDate);
-                pstmt.executeUpdate();
+    public ClaimResult claimDailyReward(UUID playerId, String resetDate, boolean updateStreak) {
+        // 書き込みスレッドで1つの文として実行されるため、二重に受け取ることはない
+        return await(submitWrite("報酬の受け取り処理", Collections.singletonList(playerId), connection -> {
+            PreparedStatement pstmt = statements.prepare(connection, "claimReward");
+            Integer resetDay = CompactColumns.toDay(resetDate);
+            pstmt.setBytes(1, CompactColumns.toBytes(playerId));
+            CompactColumns.setNullableInt(pstmt, 2, resetDay);
+            CompactColumns.setNullableInt(pstmt, 3, updateStreak ? resetDay : null);
+            pstmt.setInt(4, updateStreak ? 1 : 0);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                // 受け取り済みの場合は更新されず、行が返らない
+                return rs.next() ? ClaimResult.claimed(rs.getInt(1)) : ClaimResult.NOT_CLAIMED;
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("最終ストリーク日の設定に失敗しました: " + e.getMessage());
-        }
+        }), ClaimResult.FAILED);
+    }
+    
+    private static void bindRecord(PreparedStatement pstmt, PlayerRecord record) throws SQLException {
+        pstmt.setBytes(1, CompactColumns.toBytes(record.getPlayerId()));
+        pstmt.setInt(2, CompactColumns.toSeconds(record.getCumulative()));
+        CompactColumns.setNullableInt(pstmt, 3, CompactColumns.toDay(record.getCumulativeDate()));
+        CompactColumns.setNullableInt(pstmt, 4, CompactColumns.toDay(record.getLastReward()));
+        pstmt.setInt(5, record.getStreak());
+        CompactColumns.setNullableInt(pstmt, 6, CompactColumns.toDay(record.getLastStreakDate()));
+        pstmt.setLong(7, record.getLastSync());
+    }
+    
+    private static void bindRecordExceptCumulative(PreparedStatement pstmt, PlayerRecord record) throws SQLException {
+        pstmt.setBytes(1, CompactColumns.toBytes(record.getPlayerId()));
+        CompactColumns.setNullableInt(pstmt, 2, CompactColumns.toDay(record.getLastReward()));
+        pstmt.setInt(3, record.getStreak());
+        CompactColumns.setNullableInt(pstmt, 4, CompactColumns.toDay(record.getLastStreakDate()));
+        pstmt.setLong(5, record.getLastSync());
     }
     
     @Override
     public CompletableFuture<Void> saveAsync() {
-        // SQLiteは各操作ごとに自動的にコミットされる
-        // 明示的な保存は不要
-        return CompletableFuture.completedFuture(null);
+        // キューに追加済みの書き込みがすべてコミットされた時点で完了する
+        return lastWrite.handle((result, error) -> null);
     }
     
     @Override
     public void close() {
-        if (connection != null) {
+        synchronized (enqueueLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (writerThread != null) {
+            writeQueue.add(stopSignal);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(30));
+                if (writerThread.isAlive()) {
+                    plugin.getLogger().warning("SQLiteの書き込みスレッドが時間内に停止しませんでした");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (readPool != null) {
+            readPool.close();
+        }
+        statements.clear();
+        if (writer != null) {
             try {
-                connection.close();
+                writer.close();
                 plugin.getLogger().info("SQLiteデータベース接続を閉じました");
             } catch (SQLException e) {
                 plugin.getLogger().severe("SQLiteデータベース接続のクローズに失敗しました: " + e.getMessage());
@@ -249,33 +876,18 @@ public class SqliteStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized long getLastSync(UUID playerId) {
-        String sql = "SELECT last_sync FROM player_data WHERE uuid = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, playerId.toString());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getLong("last_sync");
-                }
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("最終同期日時の取得に失敗しました: " + e.getMessage());
-        }
-        return 0L;
+    public long getLastSync(UUID playerId) {
+        return selectColumn("getLastSync", playerId, rs -> rs.getLong(1), 0L, "最終同期日時の取得");
     }
     
     @Override
-    public synchronized void setLastSync(UUID playerId, long lastSync) {
-        String sql = "INSERT INTO player_data (uuid, last_sync) VALUES (?, ?) " +
-                "ON CONFLICT(uuid) DO UPDATE SET last_sync = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, playerId.toString());
-            pstmt.setLong(2, lastSync);
-            pstmt.setLong(3, lastSync);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            plugin.getLogger().severe("最終同期日時の設定に失敗しました: " + e.getMessage());
-        }
+    public void setLastSync(UUID playerId, long lastSync) {
+        upsertColumn("setLastSync", playerId, lastSync, "最終同期日時の設定");
+    }
+    
+    @Override
+    public List<StatementRegistry.Stats> getStatementStats() {
+        return statements.getStats();
     }
     
     @Override
@@ -285,42 +897,38 @@ public class SqliteStorage implements StorageInterface {
     }
     
     @Override
-    public synchronized boolean deletePlayerData(UUID playerId) {
-        String sql = "DELETE FROM player_data WHERE uuid = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, playerId.toString());
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            plugin.getLogger().severe("プレイヤーデータの削除に失敗しました: " + e.getMessage());
-            return false;
-        }
+    public boolean deletePlayerData(UUID playerId) {
+        return await(submitWrite("プレイヤーデータの削除", Collections.singletonList(playerId), connection -> {
+            PreparedStatement pstmt = statements.prepare(connection, "deletePlayerData");
+            pstmt.setBytes(1, CompactColumns.toBytes(playerId));
+            return pstmt.executeUpdate() > 0;
+        }), false);
     }
     
     @Override
-    public synchronized boolean deleteAllPlayerData() {
-        String sql = "DELETE FROM player_data";
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(sql);
-            return true;
-        } catch (SQLException e) {
-            plugin.getLogger().severe("全プレイヤーデータの削除に失敗しました: " + e.getMessage());
-            return false;
-        }
+    public boolean deleteAllPlayerData() {
+        return await(submitWrite("全プレイヤーデータの削除", null, connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DELETE FROM player_data");
+                return true;
+            }
+        }), false);
     }
     
     @Override
-    public synchronized java.util.List<UUID> getAllPlayerUUIDs() {
+    public java.util.List<UUID> getAllPlayerUUIDs() {
         java.util.List<UUID> uuids = new java.util.ArrayList<>();
+        awaitPendingWrites();
         String sql = "SELECT uuid FROM player_data";
-        try (Statement stmt = connection.createStatement();
+        try (PooledConnection pooled = readPool.borrow();
+             Statement stmt = pooled.get().createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                try {
-                    UUID uuid = UUID.fromString(rs.getString("uuid"));
+                UUID uuid = CompactColumns.fromBytes(rs.getBytes("uuid"));
+                if (uuid != null) {
                     uuids.add(uuid);
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().warning("無効なUUID: " + rs.getString("uuid"));
+                } else {
+                    plugin.getLogger().warning("無効なUUIDの行があります");
                 }
             }
         } catch (SQLException e) {
@@ -328,4 +936,30 @@ public class SqliteStorage implements StorageInterface {
         }
         return uuids;
     }
+    
+    @Override
+    public List<StreakEntry> topStreaks(int limit) {
+        List<StreakEntry> entries = new ArrayList<>();
+        if (limit <= 0) {
+            return entries;
+        }
+        awaitPendingWrites();
+        try (PooledConnection pooled = readPool.borrow()) {
+            PreparedStatement pstmt = statements.prepare(pooled.get(), "topStreaks");
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = CompactColumns.fromBytes(rs.getBytes("uuid"));
+                    if (uuid != null) {
+                        entries.add(new StreakEntry(uuid, null, rs.getInt("streak")));
+                    } else {
+                        plugin.getLogger().warning("無効なUUIDの行があります");
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("ストリークランキングの取得に失敗しました: " + e.getMessage());
+        }
+        return entries;
+    }
 }
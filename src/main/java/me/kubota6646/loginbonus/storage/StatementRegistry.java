@@ -0,0 +1,136 @@
+package me.kubota6646.loginbonus.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 名前付きのSQLを接続ごとに1回だけ準備し、再利用するレジストリ
+ * 取得した PreparedStatement はレジストリが所有するため、呼び出し側で close() しないでください（ResultSet は閉じてください）。
+ * 1つの接続は同時に1つのスレッドからのみ使用される前提です（コネクションプールから借り出した接続、または専用スレッドの接続）。
+ * 文ごとの実行回数と準備回数を記録し、{@link #getStats()} で参照できます。
+ */
+public final class StatementRegistry {
+
+    private final Map<String, String> sqlByName = new LinkedHashMap<>();
+    private final Map<String, LongAdder> executions = new HashMap<>();
+    private final Map<String, LongAdder> prepares = new HashMap<>();
+    private final Map<Connection, Map<String, PreparedStatement>> statements = new ConcurrentHashMap<>();
+
+    /**
+     * SQLを登録する（ストレージの初期化前に呼び出してください）
+     * @param name 文の名前
+     * @param sql SQL
+     * @return このレジストリ
+     */
+    public StatementRegistry register(String name, String sql) {
+        sqlByName.put(name, sql);
+        executions.put(name, new LongAdder());
+        prepares.put(name, new LongAdder());
+        return this;
+    }
+
+    /**
+     * 登録済みの文を取得する
+     * この接続で初めて使用する場合のみ準備し、以降は同じ PreparedStatement を返します
+     * @param connection 使用する接続
+     * @param name 文の名前
+     * @return パラメータ設定前の PreparedStatement
+     */
+    public PreparedStatement prepare(Connection connection, String name) throws SQLException {
+        String sql = sqlByName.get(name);
+        if (sql == null) {
+            throw new IllegalArgumentException("登録されていないSQLです: " + name);
+        }
+        Map<String, PreparedStatement> cache = statements.get(connection);
+        if (cache == null) {
+            removeClosedConnections();
+            cache = new HashMap<>();
+            statements.put(connection, cache);
+        }
+        PreparedStatement statement = cache.get(name);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql);
+            cache.put(name, statement);
+            prepares.get(name).increment();
+        } else {
+            statement.clearParameters();
+        }
+        executions.get(name).increment();
+        return statement;
+    }
+
+    /**
+     * 閉じられた接続の文を破棄する
+     */
+    private void removeClosedConnections() {
+        statements.keySet().removeIf(connection -> {
+            try {
+                return connection.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * すべての接続の文を破棄する（接続を閉じる際に呼び出し）
+     */
+    public void clear() {
+        statements.clear();
+    }
+
+    /**
+     * 文ごとの統計を取得
+     * @return 実行回数の多い順に並んだ統計
+     */
+    public List<Stats> getStats() {
+        List<Stats> stats = new ArrayList<>();
+        for (String name : sqlByName.keySet()) {
+            stats.add(new Stats(name, executions.get(name).sum(), prepares.get(name).sum()));
+        }
+        stats.sort((a, b) -> Long.compare(b.getExecutions(), a.getExecutions()));
+        return Collections.unmodifiableList(stats);
+    }
+
+    /**
+     * 1つの文の統計
+     */
+    public static final class Stats {
+        private final String name;
+        private final long executions;
+        private final long prepares;
+
+        private Stats(String name, long executions, long prepares) {
+            this.name = name;
+            this.executions = executions;
+            this.prepares = prepares;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 実行回数（バッチ実行は1回として数えます）
+         */
+        public long getExecutions() {
+            return executions;
+        }
+
+        /**
+         * @return 準備した回数（接続ごとに1回、再接続時に再度準備されます）
+         */
+        public long getPrepares() {
+            return prepares;
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package me.kubota6646.loginbonus.storage;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -19,6 +24,39 @@ public interface StorageInterface {
      */
     void setCumulative(UUID playerId, double cumulative);
     
+    /**
+     * プレイヤーの累積時間に加算する（リセット日付ごとに集計）
+     * 保存済みの累積時間が別のリセット日付のものであれば、加算せずに置き換えます。
+     * 書き込み前の読み込みが不要で、複数のサーバーから同時に加算しても失われません。
+     * @param playerId プレイヤーのUUID
+     * @param minutes 加算する時間（分）
+     * @param resetDate 加算する時間のリセット日付（YYYY-MM-DD HH:mm形式）
+     */
+    void addCumulative(UUID playerId, double minutes, String resetDate);
+
+    /**
+     * 複数プレイヤーの累積時間にまとめて加算する
+     * SQLストレージでは1回のバッチで実行されます
+     * @param minutes プレイヤーごとの加算する時間（分）
+     * @param resetDate 加算する時間のリセット日付（YYYY-MM-DD HH:mm形式）
+     */
+    default void addCumulatives(Map<UUID, Double> minutes, String resetDate) {
+        for (Map.Entry<UUID, Double> entry : minutes.entrySet()) {
+            addCumulative(entry.getKey(), entry.getValue(), resetDate);
+        }
+    }
+
+    /**
+     * 複数プレイヤーの累積時間にまとめて加算し、書き込みの完了まで待機する
+     * @param minutes プレイヤーごとの加算する時間（分）
+     * @param resetDate 加算する時間のリセット日付（YYYY-MM-DD HH:mm形式）
+     * @return 全件の加算に成功した場合true
+     */
+    default boolean addCumulativesAndWait(Map<UUID, Double> minutes, String resetDate) {
+        addCumulatives(minutes, resetDate);
+        return true;
+    }
+
     /**
      * プレイヤーの最終報酬日を取得
      * @param playerId プレイヤーのUUID
@@ -60,7 +98,144 @@ public interface StorageInterface {
      * @param lastStreakDate 最終ストリーク日（YYYY-MM-DD形式）
      */
     void setLastStreakDate(UUID playerId, String lastStreakDate);
-    
+
+    /**
+     * プレイヤーの全データを1回の読み込みで取得
+     * @param playerId プレイヤーのUUID
+     * @return プレイヤーデータ、存在しなければnull
+     */
+    PlayerRecord loadRecord(UUID playerId);
+
+    /**
+     * プレイヤーの全データを1回の書き込みで保存（存在しなければ作成）
+     * プレイヤー名がnullの場合、保存済みのプレイヤー名は変更されません
+     * @param record プレイヤーデータ
+     */
+    void saveRecord(PlayerRecord record);
+
+    /**
+     * 1日1回の報酬の受け取りを記録する
+     * 最終報酬日がリセット日付と異なる場合のみ、最終報酬日の設定・累積時間のリセット・ストリークの更新を1回の操作で行います。
+     * 複数のサーバーや二重の呼び出しが同時に受け取ろうとしても、成功するのは1回だけです。
+     * @param playerId プレイヤーのUUID
+     * @param resetDate 現在のリセット日付（YYYY-MM-DD HH:mm形式）
+     * @param updateStreak ストリークを更新する場合true
+     * @return 受け取り結果（既に受け取り済みの場合は {@link ClaimResult#NOT_CLAIMED}、ストレージのエラーの場合は {@link ClaimResult#FAILED}）
+     */
+    ClaimResult claimDailyReward(UUID playerId, String resetDate, boolean updateStreak);
+
+    /**
+     * 複数プレイヤーのデータをまとめて取得
+     * @param playerIds プレイヤーのUUID
+     * @return データが存在するプレイヤーのみを含むMap
+     */
+    default Map<UUID, PlayerRecord> loadRecords(Collection<UUID> playerIds) {
+        Map<UUID, PlayerRecord> records = new HashMap<>();
+        for (UUID playerId : playerIds) {
+            PlayerRecord record = loadRecord(playerId);
+            if (record != null) {
+                records.put(playerId, record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 複数プレイヤーのデータをまとめて保存
+     * SQLストレージでは1つのトランザクション内でバッチ実行されます
+     * @param records プレイヤーデータ
+     */
+    default void saveRecords(Collection<PlayerRecord> records) {
+        for (PlayerRecord record : records) {
+            saveRecord(record);
+        }
+    }
+
+    /**
+     * 複数プレイヤーのデータをまとめて保存し、書き込みの完了まで待機する
+     * SQLストレージでは1つのトランザクション内でバッチ実行され、失敗した場合は1件も保存されません。
+     * @param records プレイヤーデータ
+     * @return 全件の保存に成功した場合true
+     */
+    default boolean saveRecordsAndWait(Collection<PlayerRecord> records) {
+        saveRecords(records);
+        return true;
+    }
+
+    /**
+     * 累積時間を除いたプレイヤーデータをまとめて保存し、書き込みの完了まで待機する
+     * 累積時間を加算（addCumulativesAndWait）で書き込む場合に使用し、他のサーバーの加算を含む保存済みの累積時間は変更しません。
+     * データが存在しないプレイヤーの累積時間は0で作成されます。
+     * @param records プレイヤーデータ
+     * @return 全件の保存に成功した場合true
+     */
+    default boolean saveRecordsExceptCumulativeAndWait(Collection<PlayerRecord> records) {
+        List<UUID> ids = new ArrayList<>(records.size());
+        for (PlayerRecord record : records) {
+            ids.add(record.getPlayerId());
+        }
+        Map<UUID, PlayerRecord> stored = loadRecords(ids);
+        List<PlayerRecord> merged = new ArrayList<>(records.size());
+        for (PlayerRecord record : records) {
+            PlayerRecord current = stored.get(record.getPlayerId());
+            merged.add(new PlayerRecord(record.getPlayerId(), record.getPlayerName(),
+                    current != null ? current.getCumulative() : 0.0, current != null ? current.getCumulativeDate() : null,
+                    record.getLastReward(), record.getStreak(), record.getLastStreakDate(), record.getLastSync()));
+        }
+        return saveRecordsAndWait(merged);
+    }
+
+    /**
+     * 指定したUUIDより後のプレイヤーデータを、UUIDの順に一定件数ずつ取得
+     * 全てのデータをメモリに読み込まずに走査するために使用します（データ移行など）。
+     * 並び順はUUIDの16バイト表現のバイト順で、最後に取得したUUIDを次の呼び出しに渡すことで続きから取得できます。
+     * @param after このUUIDより後から取得（nullの場合は先頭から）
+     * @param limit 取得する最大件数
+     * @return UUIDの順に並んだプレイヤーデータ、末尾に達した場合は空のリスト
+     * @throws IllegalStateException 読み取りに失敗した場合（末尾と区別するため）
+     */
+    default List<PlayerRecord> scanRecords(UUID after, int limit) {
+        List<UUID> ids = new ArrayList<>(getAllPlayerUUIDs());
+        ids.sort(CompactColumns::compareKeys);
+        List<UUID> page = new ArrayList<>(limit);
+        for (UUID playerId : ids) {
+            if (after != null && CompactColumns.compareKeys(playerId, after) <= 0) {
+                continue;
+            }
+            page.add(playerId);
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        Map<UUID, PlayerRecord> loaded = loadRecords(page);
+        List<PlayerRecord> records = new ArrayList<>(loaded.size());
+        for (UUID playerId : page) {
+            PlayerRecord record = loaded.get(playerId);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * プレイヤーの全データを非同期で取得
+     * @param playerId プレイヤーのUUID
+     * @return プレイヤーデータ（存在しなければnull）を返すCompletableFuture
+     */
+    default CompletableFuture<PlayerRecord> loadRecordAsync(UUID playerId) {
+        return CompletableFuture.supplyAsync(() -> loadRecord(playerId));
+    }
+
+    /**
+     * プレイヤーの全データを非同期で保存
+     * @param record プレイヤーデータ
+     * @return CompletableFuture
+     */
+    default CompletableFuture<Void> saveRecordAsync(PlayerRecord record) {
+        return CompletableFuture.runAsync(() -> saveRecord(record));
+    }
+
     /**
      * データを非同期で保存
      * @return CompletableFuture
@@ -69,6 +244,7 @@ public interface StorageInterface {
     
     /**
      * ストレージを初期化
+     * @throws IllegalStateException 初期化に失敗し、ストレージを使用できない場合
      */
     void initialize();
     
@@ -120,7 +296,23 @@ public interface StorageInterface {
      * @return プレイヤーUUIDのリスト
      */
     java.util.List<UUID> getAllPlayerUUIDs();
-    
+
+    /**
+     * ストリーク日数の多い順に上位のプレイヤーを取得
+     * ストリークが0以下のプレイヤーは含まれません
+     * @param limit 取得する最大件数
+     * @return ストリーク日数の降順に並んだリスト
+     */
+    java.util.List<StreakEntry> topStreaks(int limit);
+
+    /**
+     * SQL文ごとの実行回数を取得
+     * @return 実行回数の多い順に並んだ統計（SQLを使用しないストレージでは空）
+     */
+    default java.util.List<StatementRegistry.Stats> getStatementStats() {
+        return java.util.Collections.emptyList();
+    }
+
     /**
      * プレイヤー名を更新（オプション、v1.5.0で追加）
      * @param playerId プレイヤーのUUID
@@ -129,4 +321,52 @@ public interface StorageInterface {
     default void updatePlayerName(UUID playerId, String playerName) {
         // デフォルト実装は何もしない（YAML/SQLiteでは不要）
     }
+
+    /**
+     * サーバー間移動時の引き継ぎを待ち、このサーバーでプレイヤーデータの使用を開始する（参加時に呼び出し）
+     * 前のサーバーがまだ保存中の場合は、保存が完了するまで短い間隔で確認しながら待機します
+     * 待機することがあるため、非同期スレッドから呼び出してください
+     * @param playerId プレイヤーのUUID
+     * @param playerName プレイヤー名（リースと同じ書き込みで保存します）
+     * @return 待機時間内に前のサーバーから引き継げた場合true
+     */
+    default boolean acquireLease(UUID playerId, String playerName) {
+        // デフォルト実装はプレイヤー名の更新のみ行う（複数サーバーで共有しないストレージではリースは不要）
+        updatePlayerName(playerId, playerName);
+        return true;
+    }
+
+    /**
+     * 他のサーバーで変更されたプレイヤーのデータについて、保持しているコピーを破棄して読み直す
+     * このサーバーでの未保存の変更は破棄されます（未保存の累積時間の加算は読み直したデータに引き継がれます）
+     * @param playerId プレイヤーのUUID
+     */
+    default void invalidatePlayer(UUID playerId) {
+        // デフォルト実装は何もしない（キャッシュを持たないストレージでは不要）
+    }
+
+    /**
+     * 保持している全プレイヤーのデータのコピーを破棄して読み直す
+     */
+    default void invalidateAll() {
+        // デフォルト実装は何もしない（キャッシュを持たないストレージでは不要）
+    }
+
+    /**
+     * プレイヤーのデータをメモリに読み込む（参加時に呼び出し）
+     * 呼び出し元のスレッドで読み込みを行うため、MySQL使用時は非同期スレッドから呼び出してください
+     * @param playerId プレイヤーのUUID
+     */
+    default void loadPlayer(UUID playerId) {
+        // デフォルト実装は何もしない（キャッシュを持たないストレージでは不要）
+    }
+
+    /**
+     * プレイヤーの未保存データを書き込み、メモリから解放する（退出時に呼び出し）
+     * @param playerId プレイヤーのUUID
+     * @return 書き込み完了時に完了するCompletableFuture
+     */
+    default CompletableFuture<Void> unloadPlayer(UUID playerId) {
+        return CompletableFuture.completedFuture(null);
+    }
 }
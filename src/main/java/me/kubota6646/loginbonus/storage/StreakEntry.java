@@ -0,0 +1,43 @@
+package me.kubota6646.loginbonus.storage;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * ストリークランキングの1行（プレイヤーとストリーク日数）
+ */
+public final class StreakEntry {
+
+    private final UUID playerId;
+    private final String playerName;
+    private final int streak;
+
+    public StreakEntry(UUID playerId, String playerName, int streak) {
+        this.playerId = Objects.requireNonNull(playerId, "playerId");
+        this.playerName = playerName;
+        this.streak = streak;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * @return プレイヤー名、不明な場合はnull（MySQLのみ保存されます）
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * @return ストリーク日数
+     */
+    public int getStreak() {
+        return streak;
+    }
+
+    @Override
+    public String toString() {
+        return "StreakEntry{" + playerId + ", " + playerName + ", streak=" + streak + "}";
+    }
+}
@@ -1,19 +1,40 @@
 package me.kubota6646.loginbonus.storage;
 
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * YAMLファイルによるストレージ
+ * ファイルへの書き込みは専用の書き込みスレッド1本で行い、連続した保存要求は1回の書き込みにまとめます。
+ * 書き込みは一時ファイルへの出力と置き換えで行うため、書き込み中に停止してもファイルが壊れません。
+ */
 public class YamlStorage implements StorageInterface {
     
     private final JavaPlugin plugin;
     private FileConfiguration playerData;
     private File playerDataFile;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LoginBonus-YamlWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean dirty; // 前回の保存以降に変更があるか
+    private CompletableFuture<Boolean> pendingSave; // まだ開始していない保存
     
     public YamlStorage(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -37,83 +58,230 @@ public class YamlStorage implements StorageInterface {
                 plugin.getLogger().severe("playerdata.yml の作成に失敗しました: " + e.getMessage());
             }
         }
-        playerData = YamlConfiguration.loadConfiguration(playerDataFile);
+        synchronized (this) {
+            playerData = YamlConfiguration.loadConfiguration(playerDataFile);
+        }
     }
     
     @Override
-    public double getCumulative(UUID playerId) {
+    public synchronized double getCumulative(UUID playerId) {
         String key = playerId.toString() + ".cumulative";
         return playerData.getDouble(key, 0.0);
     }
     
     @Override
-    public void setCumulative(UUID playerId, double cumulative) {
+    public synchronized void setCumulative(UUID playerId, double cumulative) {
         String key = playerId.toString() + ".cumulative";
         playerData.set(key, cumulative);
+        dirty = true;
+    }
+    
+    @Override
+    public synchronized void addCumulative(UUID playerId, double minutes, String resetDate) {
+        String key = playerId.toString();
+        String cumulativeDate = playerData.getString(key + ".cumulativeDate");
+        double cumulative = playerData.getDouble(key + ".cumulative", 0.0);
+        if (PlayerRecord.isOlderPeriod(resetDate, cumulativeDate)) {
+            // 保存済みより古いリセット日付の加算は無視する
+            return;
+        }
+        boolean samePeriod = cumulativeDate == null || cumulativeDate.equals(resetDate);
+        playerData.set(key + ".cumulative", samePeriod ? cumulative + minutes : minutes);
+        playerData.set(key + ".cumulativeDate", resetDate);
+        dirty = true;
     }
     
     @Override
-    public String getLastReward(UUID playerId) {
+    public synchronized String getLastReward(UUID playerId) {
         String key = playerId.toString() + ".lastReward";
         return playerData.getString(key);
     }
     
     @Override
-    public void setLastReward(UUID playerId, String lastReward) {
+    public synchronized void setLastReward(UUID playerId, String lastReward) {
         String key = playerId.toString() + ".lastReward";
         playerData.set(key, lastReward);
+        dirty = true;
     }
     
     @Override
-    public int getStreak(UUID playerId) {
+    public synchronized int getStreak(UUID playerId) {
         String key = playerId.toString() + ".streak";
         return playerData.getInt(key, 1);
     }
     
     @Override
-    public void setStreak(UUID playerId, int streak) {
+    public synchronized void setStreak(UUID playerId, int streak) {
         String key = playerId.toString() + ".streak";
         playerData.set(key, streak);
+        dirty = true;
     }
     
     @Override
-    public String getLastStreakDate(UUID playerId) {
+    public synchronized String getLastStreakDate(UUID playerId) {
         String key = playerId.toString() + ".lastStreakDate";
         return playerData.getString(key);
     }
     
     @Override
-    public void setLastStreakDate(UUID playerId, String lastStreakDate) {
+    public synchronized void setLastStreakDate(UUID playerId, String lastStreakDate) {
         String key = playerId.toString() + ".lastStreakDate";
         playerData.set(key, lastStreakDate);
+        dirty = true;
+    }
+    
+    @Override
+    public synchronized PlayerRecord loadRecord(UUID playerId) {
+        ConfigurationSection section = playerData.getConfigurationSection(playerId.toString());
+        if (section == null) {
+            return null;
+        }
+        return new PlayerRecord(playerId, null,
+                section.getDouble("cumulative", 0.0),
+                section.getString("cumulativeDate"),
+                section.getString("lastReward"),
+                section.getInt("streak", 1),
+                section.getString("lastStreakDate"),
+                section.getLong("lastSync", 0L));
+    }
+    
+    @Override
+    public synchronized void saveRecord(PlayerRecord record) {
+        String key = record.getPlayerId().toString();
+        playerData.set(key + ".cumulative", record.getCumulative());
+        playerData.set(key + ".cumulativeDate", record.getCumulativeDate());
+        playerData.set(key + ".lastReward", record.getLastReward());
+        playerData.set(key + ".streak", record.getStreak());
+        playerData.set(key + ".lastStreakDate", record.getLastStreakDate());
+        playerData.set(key + ".lastSync", record.getLastSync());
+        dirty = true;
+    }
+    
+    @Override
+    public boolean addCumulativesAndWait(Map<UUID, Double> minutes, String resetDate) {
+        addCumulatives(minutes, resetDate);
+        // ファイルへの書き込みの完了を待つ
+        return requestSave().join();
+    }
+    
+    @Override
+    public boolean saveRecordsExceptCumulativeAndWait(Collection<PlayerRecord> records) {
+        synchronized (this) {
+            for (PlayerRecord record : records) {
+                String key = record.getPlayerId().toString();
+                // 累積時間は加算で書き込むため、保存済みの値を維持する
+                if (!playerData.contains(key + ".cumulative")) {
+                    playerData.set(key + ".cumulative", 0.0);
+                }
+                playerData.set(key + ".lastReward", record.getLastReward());
+                playerData.set(key + ".streak", record.getStreak());
+                playerData.set(key + ".lastStreakDate", record.getLastStreakDate());
+                playerData.set(key + ".lastSync", record.getLastSync());
+            }
+            dirty = true;
+        }
+        return requestSave().join();
+    }
+    
+    @Override
+    public boolean saveRecordsAndWait(Collection<PlayerRecord> records) {
+        synchronized (this) {
+            for (PlayerRecord record : records) {
+                saveRecord(record);
+            }
+        }
+        // ファイルへの書き込みの完了を待つ
+        return requestSave().join();
+    }
+    
+    @Override
+    public synchronized ClaimResult claimDailyReward(UUID playerId, String resetDate, boolean updateStreak) {
+        PlayerRecord record = loadRecord(playerId);
+        if (record == null) {
+            record = PlayerRecord.empty(playerId);
+        }
+        if (resetDate.equals(record.getLastReward())) {
+            return ClaimResult.NOT_CLAIMED;
+        }
+        if (updateStreak) {
+            record = record.withStreakUpdatedFor(resetDate);
+        }
+        saveRecord(record.withCumulative(0.0).withLastReward(resetDate));
+        // 異常終了しても同じ日の報酬を再度受け取れないよう、受け取りはすぐにファイルへ書き込む（完了は待たない）
+        requestSave();
+        return ClaimResult.claimed(record.getStreak());
     }
     
     @Override
     public CompletableFuture<Void> saveAsync() {
-        return CompletableFuture.runAsync(() -> {
+        return requestSave().thenApply(saved -> null);
+    }
+    
+    /**
+     * 書き込みスレッドにファイルの保存を依頼する
+     * まだ開始していない保存がある場合はその保存にまとめ、変更がない場合は書き込みを行いません。
+     * @return 保存に成功した（または保存が不要だった）場合trueで完了するCompletableFuture
+     */
+    private synchronized CompletableFuture<Boolean> requestSave() {
+        if (pendingSave == null) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            pendingSave = future;
+            writer.execute(() -> future.complete(writeSnapshot()));
+        }
+        return pendingSave;
+    }
+    
+    /**
+     * 現在の内容を一時ファイルに書き込み、playerdata.yml と置き換える（書き込みスレッドで実行）
+     */
+    private boolean writeSnapshot() {
+        String data;
+        synchronized (this) {
+            // ここから先の変更は次の保存で書き込む
+            pendingSave = null;
+            if (!dirty) {
+                return true;
+            }
+            dirty = false;
+            data = playerData.saveToString();
+        }
+        File tempFile = new File(playerDataFile.getParentFile(), playerDataFile.getName() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), data.getBytes(StandardCharsets.UTF_8));
             try {
-                playerData.save(playerDataFile);
-            } catch (IOException e) {
-                plugin.getLogger().severe("playerdata.yml の保存に失敗しました: " + e.getMessage());
+                Files.move(tempFile.toPath(), playerDataFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), playerDataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().severe("playerdata.yml の保存に失敗しました: " + e.getMessage());
+            synchronized (this) {
+                // 次の保存で再度書き込む
+                dirty = true;
             }
-        });
+            return false;
+        }
     }
     
     @Override
     public void close() {
-        // YAMLストレージは特にクローズ処理不要
+        // 未保存の変更を書き込んでから書き込みスレッドを停止する
+        requestSave().join();
+        writer.shutdown();
     }
     
     @Override
-    public long getLastSync(UUID playerId) {
+    public synchronized long getLastSync(UUID playerId) {
         String key = playerId.toString() + ".lastSync";
         return playerData.getLong(key, 0L);
     }
     
     @Override
-    public void setLastSync(UUID playerId, long lastSync) {
+    public synchronized void setLastSync(UUID playerId, long lastSync) {
         String key = playerId.toString() + ".lastSync";
         playerData.set(key, lastSync);
+        dirty = true;
     }
     
     @Override
@@ -123,42 +291,49 @@ public class YamlStorage implements StorageInterface {
     }
     
     public void reload() {
-        playerData = YamlConfiguration.loadConfiguration(playerDataFile);
+        // 未保存の変更を書き込んでからファイルを読み直す
+        requestSave().join();
+        synchronized (this) {
+            playerData = YamlConfiguration.loadConfiguration(playerDataFile);
+            dirty = false;
+        }
     }
     
     @Override
     public boolean deletePlayerData(UUID playerId) {
         String key = playerId.toString();
-        if (playerData.contains(key)) {
-            playerData.set(key, null);
-            try {
-                playerData.save(playerDataFile);
-                return true;
-            } catch (IOException e) {
-                plugin.getLogger().severe("プレイヤーデータの削除に失敗しました: " + e.getMessage());
+        synchronized (this) {
+            if (!playerData.contains(key)) {
                 return false;
             }
+            playerData.set(key, null);
+            dirty = true;
         }
-        return false;
+        if (!requestSave().join()) {
+            plugin.getLogger().severe("プレイヤーデータの削除に失敗しました: " + playerId);
+            return false;
+        }
+        return true;
     }
     
     @Override
     public boolean deleteAllPlayerData() {
-        try {
+        synchronized (this) {
             // 全てのキーを削除
             for (String key : playerData.getKeys(false)) {
                 playerData.set(key, null);
             }
-            playerData.save(playerDataFile);
-            return true;
-        } catch (IOException e) {
-            plugin.getLogger().severe("全プレイヤーデータの削除に失敗しました: " + e.getMessage());
+            dirty = true;
+        }
+        if (!requestSave().join()) {
+            plugin.getLogger().severe("全プレイヤーデータの削除に失敗しました");
             return false;
         }
+        return true;
     }
     
     @Override
-    public java.util.List<UUID> getAllPlayerUUIDs() {
+    public synchronized java.util.List<UUID> getAllPlayerUUIDs() {
         java.util.List<UUID> uuids = new java.util.ArrayList<>();
         for (String key : playerData.getKeys(false)) {
             try {
@@ -170,4 +345,34 @@ public class YamlStorage implements StorageInterface {
         }
         return uuids;
     }
+
+    @Override
+    public synchronized java.util.List<StreakEntry> topStreaks(int limit) {
+        if (limit <= 0) {
+            return new java.util.ArrayList<>();
+        }
+        // 上位limit件だけを保持する最小ヒープ（先頭が保持中の最小ストリーク）
+        java.util.PriorityQueue<StreakEntry> heap = new java.util.PriorityQueue<>(limit + 1,
+                java.util.Comparator.comparingInt(StreakEntry::getStreak));
+        for (String key : playerData.getKeys(false)) {
+            int streak = playerData.getInt(key + ".streak", 1);
+            if (streak <= 0 || (heap.size() >= limit && streak <= heap.peek().getStreak())) {
+                continue;
+            }
+            UUID uuid;
+            try {
+                uuid = UUID.fromString(key);
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("無効なUUID: " + key);
+                continue;
+            }
+            heap.offer(new StreakEntry(uuid, null, streak));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        java.util.List<StreakEntry> entries = new java.util.ArrayList<>(heap);
+        entries.sort(java.util.Comparator.comparingInt(StreakEntry::getStreak).reversed());
+        return entries;
+    }
 }